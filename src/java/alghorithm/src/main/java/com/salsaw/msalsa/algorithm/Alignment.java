@@ -15,12 +15,20 @@
  */
 package com.salsaw.msalsa.algorithm;
 
-import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.salsaw.msalsa.algorithm.enums.DeltaEngine;
 import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
 import com.salsaw.msalsa.algorithm.enums.MatrixSerie;
 import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
@@ -40,8 +48,9 @@ import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
  * each iteration the value of the WSP-Score, but only calculate the
  * improvements obtained by moving the GAP (the δ).</li>
  * <li>Another optimization is the implementation of a preprocessor that
- * converts the characters of the alignment to integers values. There is a
- * bijective correspondence between the characters and the integers generated.
+ * converts the characters of the alignment to integers values (stored as
+ * bytes). There is a bijective correspondence between the characters and the
+ * integers generated.
  * <p>
  * The pre-processing is used only for efficiency purposes: the integers
  * correspond to correct indices in the matrix of class SubstitutionMatrix. In
@@ -61,25 +70,49 @@ import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
  *
  */
 public final class Alignment {
+	// CONSTANTS
+	/**
+	 * Number of residues in each line of the saved FASTA file
+	 */
+	private static final int FASTA_LINE_LENGTH = 60;
+	private static final byte[] HEADER_START = { '>' };
+	private static final int SAVE_BUFFER_SIZE = 64 * 1024;
+
 	// FIELDS
 	private int numberOfSequences;
 	private int length;
 	/**
-	 * The alignment
+	 * The alignment. The characters are stored as bytes: an alphabet never
+	 * has more than 127 characters (INDEL included), and a byte per cell
+	 * takes a quarter of the memory of an int.
 	 */
-	private final int[] alignMatrix;
+	private final byte[] alignMatrix;
 	private final Alphabet alphabet;
 	private SubstitutionMatrix substitution;
+	/**
+	 * Score table of the substitution matrix (GEP included), read directly
+	 * in the most frequent calculations
+	 */
+	private double[] scoreTable;
 	/**
 	 * Sequences name and properties (found in FASTA files)
 	 */
 	private String[] properties;
 	private double[] weights;
 	private double weightsSUM;
-	private final ArrayList<GAP> GAPS;
+	private final GAPList GAPS;
 
 	private double[] countersMatrix;
 
+	private DeltaEngine deltaEngine = DeltaEngine.COUNTERS;
+
+	/**
+	 * Used only by the {@link DeltaEngine#COLUMN_PROFILE} engine: position
+	 * [column * (alphabet.dimension() + 1) + x] contains the sum, over all the
+	 * characters α of the column, of counters[α][column] * score(x, α)
+	 */
+	private double[] columnProfile;
+
 	/**
 	 * GAP opening penalty
 	 */
@@ -87,6 +120,12 @@ public final class Alignment {
 
 	private final TerminalGAPsStrategy terminal;
 
+	/**
+	 * Estimate used to choose the substitution matrix of a serie, null if the
+	 * matrix has been given
+	 */
+	private IdentityEstimate identityEstimate;
+
 	// CONSTRUCTORS
 	
 	public Alignment(final String inputFilePath, final String treeFileName,
@@ -115,7 +154,7 @@ public final class Alignment {
 			throws IOException, SALSAException {		
 		this.GOP = gop;
 		this.terminal = tgs;
-		ArrayList<String> sequences = readInputSequences(inputFilePath);
+		byte[] residues = readInputSequences(inputFilePath);
 
 		if (substitutionMatrix == null) {
 			// Create SubstitutionMatrix from input data
@@ -126,9 +165,11 @@ public final class Alignment {
 				throw new SALSAException("Invalid input data for generate scoringMatrix");
 			}
 			if (matrixSerie != MatrixSerie.NONE) {				
-				double pid = getAverageIdentityScore();
-				this.substitution = SubstitutionMatrix
-						.getSubstitutionMatrix(SubstitutionMatrix.getEmbeddedSubstitutionMatrix(matrixSerie, pid), gep);
+				// The alignment is not converted yet: the identity is calculated
+				// on the residues read from the file
+				this.identityEstimate = new IdentityScore(residues, this.numberOfSequences, this.length)
+						.estimate(matrixSerie);
+				this.substitution = SubstitutionMatrix.getSubstitutionMatrix(this.identityEstimate.getMatrix(), gep);
 			} else {
 				this.substitution = SubstitutionMatrix.getSubstitutionMatrix(scoringMatrix, gep);
 			}
@@ -136,14 +177,103 @@ public final class Alignment {
 			this.substitution = substitutionMatrix;
 		}
 		this.alphabet = this.substitution.getAlphabet();
-		this.alignMatrix = new int[this.numberOfSequences * this.length];
-		this.GAPS = new ArrayList<>();
+		this.scoreTable = this.substitution.getScoreTable();
+		if (this.alphabet.INDEL() > Byte.MAX_VALUE) {
+			throw new SALSAException("Error: the alphabet has too many characters");
+		}
+		this.alignMatrix = residues;
+		this.GAPS = new GAPList();
 
 		createWeights(treeFileName);
-		preprocessing(sequences);
+		preprocessing();
+		createGAPs();
 		createCounters();
 	}
 
+	/**
+	 * Create a deep copy of the alignment: the matrix, the GAPs and the
+	 * counters are duplicated, so that the copy could be modified by a local
+	 * search without affecting the original one. The substitution matrix and
+	 * the alphabet are shared because they are never modified.
+	 * 
+	 * @param alignment
+	 * @throws SALSAException
+	 */
+	public Alignment(final Alignment alignment) throws SALSAException {
+		this.numberOfSequences = alignment.numberOfSequences;
+		this.length = alignment.length;
+		this.alignMatrix = alignment.alignMatrix.clone();
+		this.alphabet = alignment.alphabet;
+		this.substitution = alignment.substitution;
+		this.scoreTable = alignment.scoreTable;
+		this.properties = alignment.properties.clone();
+		this.weights = alignment.weights.clone();
+		this.weightsSUM = alignment.weightsSUM;
+		this.GOP = alignment.GOP;
+		this.terminal = alignment.terminal;
+		this.identityEstimate = alignment.identityEstimate;
+		this.GAPS = new GAPList();
+
+		createGAPs();
+		this.countersMatrix = alignment.countersMatrix.clone();
+		this.deltaEngine = alignment.deltaEngine;
+		if (alignment.columnProfile != null) {
+			this.columnProfile = alignment.columnProfile.clone();
+		}
+	}
+
+	/**
+	 * Recreate an alignment from the data stored inside an
+	 * {@link AlignmentSnapshot}. The GAPs are not searched inside the matrix:
+	 * they are created from the given list, that contains row, begin and end
+	 * of every GAP sorted by row and by begin, and placed in the positions of
+	 * the GAPs list stored in positions. The order of the GAPs list
+	 * determines the path of a local search.
+	 * 
+	 * @param properties
+	 * @param length
+	 * @param alignMatrix
+	 *            the alignment already converted in the integer form
+	 * @param substitution
+	 * @param weights
+	 * @param weightsSUM
+	 * @param gop
+	 * @param tgs
+	 * @param countersMatrix
+	 * @param deltaEngine
+	 * @param columnProfile
+	 *            null if the engine does not use it
+	 * @param gaps
+	 * @param positions
+	 * @throws SALSAException
+	 */
+	Alignment(final String[] properties, final int length, final byte[] alignMatrix,
+			final SubstitutionMatrix substitution, final double[] weights, final double weightsSUM,
+			final double gop, final TerminalGAPsStrategy tgs, final double[] countersMatrix,
+			final DeltaEngine deltaEngine, final double[] columnProfile, final int[] gaps, final int[] positions)
+			throws SALSAException {
+		this.numberOfSequences = properties.length;
+		this.length = length;
+		this.alignMatrix = alignMatrix;
+		this.substitution = substitution;
+		this.alphabet = substitution.getAlphabet();
+		this.scoreTable = substitution.getScoreTable();
+		if (this.alphabet.INDEL() > Byte.MAX_VALUE) {
+			throw new SALSAException("Error: the alphabet has too many characters");
+		}
+		this.properties = properties;
+		this.weights = weights;
+		this.weightsSUM = weightsSUM;
+		this.GOP = gop;
+		this.terminal = tgs;
+		this.countersMatrix = countersMatrix;
+		this.deltaEngine = deltaEngine;
+		this.columnProfile = columnProfile;
+		this.GAPS = new GAPList();
+
+		createGAPs(gaps, positions);
+	}
+
 	// GET / SET
 	public final int getNumberOfSequences() {
 		return this.numberOfSequences;
@@ -153,7 +283,7 @@ public final class Alignment {
 		return this.length;
 	}
 
-	public final ArrayList<GAP> getGAPS() {
+	public final GAPList getGAPS() {
 		return this.GAPS;
 	}
 
@@ -161,7 +291,125 @@ public final class Alignment {
 		return this.terminal;
 	}
 
+	/**
+	 * The matrix in the integer form: position [row * length + column]
+	 * contains the cell. It must not be modified outside this class.
+	 * 
+	 * @return
+	 */
+	final byte[] getAlignMatrix() {
+		return this.alignMatrix;
+	}
+
+	/**
+	 * TRUE if the cells begin and end of the row are indels and the cells
+	 * just outside them are not: a quick filter, in constant time, for the
+	 * rows that could contain a GAP from begin to end (the cells between
+	 * them are not checked). begin and end must not be on the borders.
+	 * 
+	 * @param row
+	 * @param begin
+	 * @param end
+	 * @return
+	 */
+	final boolean mayContainGAP(final int row, final int begin, final int end) {
+		int first = row * this.length;
+		int indel = this.alphabet.INDEL();
+		return this.alignMatrix[first + begin] == indel && this.alignMatrix[first + end] == indel
+				&& this.alignMatrix[first + begin - 1] != indel && this.alignMatrix[first + end + 1] != indel;
+	}
+
+	final String[] getProperties() {
+		return this.properties;
+	}
+
+	final SubstitutionMatrix getSubstitutionMatrix() {
+		return this.substitution;
+	}
+
+	final double[] getWeights() {
+		return this.weights;
+	}
+
+	final double getWeightsSUM() {
+		return this.weightsSUM;
+	}
+
+	/**
+	 * GAP opening penalty, before the weighting of the rows
+	 * 
+	 * @return
+	 * @see #getGOP(int)
+	 */
+	final double getGOP() {
+		return this.GOP;
+	}
+
+	/**
+	 * The estimate of the identity score used to choose the substitution
+	 * matrix of a serie, null if the matrix has not been chosen from a serie
+	 * 
+	 * @return
+	 */
+	public final IdentityEstimate getIdentityEstimate() {
+		return this.identityEstimate;
+	}
+
+	final double[] getCountersMatrix() {
+		return this.countersMatrix;
+	}
+
+	final double[] getColumnProfile() {
+		return this.columnProfile;
+	}
+
+	public final DeltaEngine getDeltaEngine() {
+		return this.deltaEngine;
+	}
+
+	/**
+	 * Choose how the improvement of a change is calculated. The result of the
+	 * local search does not depend on the engine.
+	 * 
+	 * @param deltaEngine
+	 */
+	public final void setDeltaEngine(final DeltaEngine deltaEngine) {
+		this.deltaEngine = deltaEngine;
+
+		switch (deltaEngine) {
+		case COLUMN_PROFILE:
+			createColumnProfile();
+			break;
+		case COUNTERS:
+			this.columnProfile = null;
+			break;
+		default:
+			throw new IllegalArgumentException("deltaEngine");
+		}
+	}
+
 	// METHODS	
+	/**
+	 * Replace the cells of the alignment with the given ones (a copy of
+	 * getAlignMatrix() taken earlier) and recreate GAPs and counters. The GAPs
+	 * list is the same object, but it contains new GAPs.
+	 * 
+	 * @param alignMatrix
+	 * @throws SALSAException
+	 */
+	final void restore(final byte[] alignMatrix) throws SALSAException {
+		if (alignMatrix.length != this.alignMatrix.length) {
+			throw new SALSAException("Error: the matrix does not match the alignment");
+		}
+		System.arraycopy(alignMatrix, 0, this.alignMatrix, 0, alignMatrix.length);
+		this.GAPS.clear();
+		createGAPs();
+		createCounters();
+		if (this.deltaEngine == DeltaEngine.COLUMN_PROFILE) {
+			createColumnProfile();
+		}
+	}
+
 	/**
 	 * It calculates the identity score of two sequences (the percentage of identical residues found in the pairwise alignment)
 	 * 
@@ -186,7 +434,7 @@ public final class Alignment {
 			if (this.alignMatrix[firstRow * this.length + column] != this.alphabet.INDEL()) {
 				lengthFirstRow++;
 			}
-			if (this.alignMatrix[firstRow * this.length + column] != this.alphabet.INDEL()) {
+			if (this.alignMatrix[secondRow * this.length + column] != this.alphabet.INDEL()) {
 				lengthSecondRow++;
 			}
 			if (this.alignMatrix[firstRow * this.length + column] != this.alphabet.INDEL() && 
@@ -203,24 +451,6 @@ public final class Alignment {
 		}
 	}
 	
-	/**
-	 * It calculates the mean of the identity scores of all couples of sequences in the alignment
-	 * 
-	 * @return
-	 * @throws SALSAException 
-	 */
-	private double getAverageIdentityScore() throws SALSAException{
-		double sum = 0.0f;
-
-		for (int i = 0; i < numberOfSequences - 1; i++){
-			for (int j = i + 1; j < numberOfSequences; j++){
-				sum += getIdentityScore(i, j);
-			}
-		}
-
-		return 2 * sum / ((float) numberOfSequences * (numberOfSequences - 1));
-	}
-	
 	/**
 	 * It calculate the distance between two sequences
 	 * 
@@ -234,25 +464,79 @@ public final class Alignment {
 	}
 	
 	/**
-	 * Calculate the WSP-score (in the classic way, without using the counters)
+	 * Calculate the WSP-score using the counters of the columns, in
+	 * O(numberOfSequences * length + length * alphabet^2) instead of the
+	 * O(numberOfSequences^2 * length) of the classic way (see
+	 * {@link #pairwiseWSP()}).
+	 * <p>
+	 * For every column the sum over all the ordered pairs of characters of
+	 * counters[α] * counters[β] * score(α, β) counts twice every pair of rows
+	 * and once every row with itself: the latter are subtracted, row by row,
+	 * before halving the sum. The penalties of the GAPs opened in a row are
+	 * the ones returned by getGOP(row).
+	 * </p>
 	 * 
 	 * @return
 	 */
 	public final double WSP() {
-		double objval = 0.0f;
-		// Int array already initialize at 0
-		int[] numberOfGAPS = new int[numberOfSequences];
-		GAP g;
-
-		for (int i = 0; i < this.GAPS.size(); i++) {
-			g = this.GAPS.get(i);
+		int dimension = this.alphabet.dimension() + 1;
+		int[] numberOfGAPS = countGAPS();
+
+		// The inner loops run along the columns, over contiguous cells of the
+		// counters, so that they could be vectorized by the JIT compiler
+		double[] profile = new double[this.length];
+		double pairs = 0.0f;
+		double score;
+		int counters;
+		for (int alpha = 0; alpha < dimension; alpha++) {
+			Arrays.fill(profile, 0);
+			for (int beta = 0; beta < dimension; beta++) {
+				score = this.scoreTable[alpha * dimension + beta];
+				if (score != 0) {
+					counters = beta * this.length;
+					for (int column = 0; column < this.length; column++) {
+						profile[column] += score * this.countersMatrix[counters + column];
+					}
+				}
+			}
+			counters = alpha * this.length;
+			for (int column = 0; column < this.length; column++) {
+				pairs += this.countersMatrix[counters + column] * profile[column];
+			}
+		}
 
-			if (this.terminal == TerminalGAPsStrategy.BOTH_PENALTIES
-					|| !g.terminalGAP()) {
-				numberOfGAPS[g.getRow()]++;
+		// Every row with itself
+		double self = 0.0f;
+		double rowScore;
+		int position, character;
+		for (int row = 0; row < this.numberOfSequences; row++) {
+			rowScore = 0.0f;
+			position = row * this.length;
+			for (int column = 0; column < this.length; column++) {
+				character = this.alignMatrix[position + column];
+				rowScore += this.scoreTable[character * dimension + character];
 			}
+			self += this.weights[row] * this.weights[row] * rowScore;
 		}
 
+		double objval = (pairs - self) / 2;
+		for (int row = 0; row < this.numberOfSequences; row++) {
+			objval -= numberOfGAPS[row] * getGOP(row);
+		}
+
+		return objval;
+	}
+
+	/**
+	 * Calculate the WSP-score in the classic way, without using the counters:
+	 * every pair of rows is compared column by column
+	 * 
+	 * @return
+	 */
+	final double pairwiseWSP() {
+		double objval = 0.0f;
+		int[] numberOfGAPS = countGAPS();
+
 		for (int r1 = 0; r1 < this.numberOfSequences - 1; r1++) {
 			for (int r2 = r1 + 1; r2 < this.numberOfSequences; r2++) {
 				objval += this.weights[r1] * this.weights[r2]
@@ -337,6 +621,84 @@ public final class Alignment {
 		g.moveRight();
 	}
 
+	/**
+	 * Move of one position, in the same direction, all the GAPs of the block
+	 * and return the improvement in the WSP-Score due to this change. The GAPs
+	 * of the block are in different rows and they have the same begin and the
+	 * same end; they must not be terminal and they must not touch another GAP
+	 * after the movement.
+	 * <p>
+	 * The residues leave one column and reach another one together, so the
+	 * changes of the pairs inside the block cancel out: the improvement is
+	 * calculated with a single pass over the counters of the two columns,
+	 * instead of a changeCell for each cell.
+	 * </p>
+	 * 
+	 * @param block
+	 * @param size
+	 *            number of GAPs of the block
+	 * @param left
+	 * @return
+	 * @throws SALSAException
+	 */
+	final double moveBlock(final GAP[] block, final int size, final boolean left) throws SALSAException {
+		int dimension = this.alphabet.dimension() + 1;
+		int indel = this.alphabet.INDEL();
+		// The column left by the residues (it becomes a column of INDELs) and
+		// the one reached by them
+		int source, target;
+		if (left) {
+			source = block[0].getBegin() - 1;
+			target = block[0].getEnd();
+		} else {
+			source = block[0].getEnd() + 1;
+			target = block[0].getBegin();
+		}
+
+		// Counters of the moved residues
+		double[] residues = new double[dimension];
+		double blockWeight = 0;
+		int row;
+		for (int i = 0; i < size; i++) {
+			row = block[i].getRow();
+			residues[this.alignMatrix[row * this.length + source]] += this.weights[row];
+			blockWeight += this.weights[row];
+		}
+
+		// Difference between the counters of the two columns without the rows
+		// of the block
+		double[] others = new double[dimension];
+		for (int alpha = 0; alpha < dimension; alpha++) {
+			others[alpha] = this.countersMatrix[alpha * this.length + target]
+					- this.countersMatrix[alpha * this.length + source] + residues[alpha];
+		}
+		others[indel] -= blockWeight;
+
+		// Each residue x moves from source to target and an INDEL does the
+		// opposite
+		residues[indel] -= blockWeight;
+		double delta = 0.0f;
+		double score;
+		for (int x = 0; x < dimension; x++) {
+			if (residues[x] != 0) {
+				score = 0.0f;
+				for (int alpha = 0; alpha < dimension; alpha++) {
+					score += others[alpha] * this.scoreTable[x * dimension + alpha];
+				}
+				delta += residues[x] * score;
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+			if (left)
+				goBackToLeft(block[i]);
+			else
+				goBackToRight(block[i]);
+		}
+
+		return delta;
+	}
+
 	/**
 	 * It returns the penalty of adding a GOP in the specified row (it depends
 	 * on the weight of the row).
@@ -349,30 +711,101 @@ public final class Alignment {
 				* (this.weightsSUM - this.weights[row]);
 	}
 
+	/**
+	 * Write the alignment in FASTA format. The file is compressed with gzip if
+	 * its name ends with {@link Constants#GZIP_FILE_EXSTENSION}.
+	 * 
+	 * @param destinationFileNamePath
+	 * @throws IOException
+	 * @throws SALSAException
+	 */
 	public final void save(String destinationFileNamePath) throws IOException,
 			SALSAException {
 
-		try (BufferedWriter bw = new BufferedWriter(new FileWriter(
-				destinationFileNamePath))) {
-
-			// Write FASTA file
-			for (int r = 0; r < this.numberOfSequences; r++) {
-				// Add header indicator
-				bw.write(">");
-				bw.write(this.properties[r]);
-				bw.newLine();
-
-				for (int c = 0; c < this.length; c++) {
-					// align
-					bw.write(alphabet.intToChar(this.alignMatrix[r * this.length + c]));
-					if (((c + 1) % 60) == 0) {
-						// add new line every 60 characters
-						bw.newLine();
-					}
+		if (CompressedFiles.isCompressedOutput(destinationFileNamePath)) {
+			try (OutputStream outputStream = CompressedFiles.openOutput(destinationFileNamePath)) {
+				save(outputStream);
+			}
+			return;
+		}
+
+		try (FileChannel channel = FileChannel.open(Paths.get(destinationFileNamePath), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			save(channel);
+		}
+	}
+
+	/**
+	 * Write the alignment in FASTA format to the stream, that is not closed
+	 * 
+	 * @param outputStream
+	 * @throws IOException
+	 * @throws SALSAException
+	 */
+	public final void save(OutputStream outputStream) throws IOException, SALSAException {
+		save(Channels.newChannel(outputStream));
+		outputStream.flush();
+	}
+
+	private void save(WritableByteChannel channel) throws IOException, SALSAException {
+		byte[] newLine = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+		ByteBuffer buffer = ByteBuffer.allocate(SAVE_BUFFER_SIZE);
+
+		// A row with a new line every FASTA_LINE_LENGTH characters and at the
+		// end, reused for all the sequences
+		byte[] row = new byte[this.length + (this.length / FASTA_LINE_LENGTH + 1) * newLine.length];
+
+		for (int r = 0; r < this.numberOfSequences; r++) {
+			// Add header indicator
+			put(channel, buffer, HEADER_START);
+			put(channel, buffer, this.properties[r].getBytes(Charset.defaultCharset()));
+			put(channel, buffer, newLine);
+
+			int position = 0;
+			for (int c = 0; c < this.length; c += FASTA_LINE_LENGTH) {
+				int lineLength = Math.min(FASTA_LINE_LENGTH, this.length - c);
+				this.alphabet.decode(this.alignMatrix, r * this.length + c, row, position, lineLength);
+				position += lineLength;
+				if (lineLength == FASTA_LINE_LENGTH) {
+					// add new line every 60 characters
+					System.arraycopy(newLine, 0, row, position, newLine.length);
+					position += newLine.length;
 				}
+			}
+			System.arraycopy(newLine, 0, row, position, newLine.length);
+			position += newLine.length;
 
-				bw.newLine();
-				bw.flush();
+			put(channel, buffer, row, position);
+		}
+
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	private static void put(WritableByteChannel channel, ByteBuffer buffer, byte[] bytes) throws IOException {
+		put(channel, buffer, bytes, bytes.length);
+	}
+
+	/**
+	 * Copy the bytes inside the buffer, writing the buffer to the channel
+	 * every time it is full
+	 */
+	private static void put(WritableByteChannel channel, ByteBuffer buffer, byte[] bytes, int length)
+			throws IOException {
+		int offset = 0;
+		while (offset < length) {
+			int chunk = Math.min(buffer.remaining(), length - offset);
+			buffer.put(bytes, offset, chunk);
+			offset += chunk;
+
+			if (!buffer.hasRemaining()) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				buffer.clear();
 			}
 		}
 	}
@@ -398,48 +831,51 @@ public final class Alignment {
 	}
 
 	/**
-	 * It reads sequences list (as a strings' vector) from a FASTA file
+	 * It reads the residues of all the sequences from a FASTA file
 	 * 
 	 * @param filePath
 	 * @return
 	 * @throws IOException
+	 * @throws SALSAException
 	 */
-	private ArrayList<String> readInputSequences(String filePath)
-			throws IOException {
-		FastaFileReader fastaReader = new FastaFileReader(filePath);
+	private byte[] readInputSequences(String filePath)
+			throws IOException, SALSAException {
+		FastaAlignmentReader fastaReader = new FastaAlignmentReader(filePath);
 
-		this.numberOfSequences = fastaReader.getSequences().size();
-		this.properties = fastaReader.getSequencesHeaders().toArray(new String[fastaReader.getSequencesHeaders()
-				.size()]);
-		this.length = fastaReader.getSequences().get(0).length();
+		this.numberOfSequences = fastaReader.getNumberOfSequences();
+		this.properties = fastaReader.getSequencesHeaders();
+		this.length = fastaReader.getLength();
 
-		return fastaReader.getSequences();
+		return fastaReader.getResidues();
 	}
 
 	/**
 	 * Converts the character alignment in an integer alignment for efficiency
-	 * reasons
+	 * reasons. The conversion is done in place: alignMatrix contains the
+	 * residues read from the file.
 	 * 
-	 * @param seq
 	 * @throws SALSAException
 	 */
-	private void preprocessing(ArrayList<String> seq)
+	private void preprocessing()
 			throws SALSAException {
+		this.alphabet.encode(this.alignMatrix, this.alignMatrix);
+	}
+
+	/**
+	 * Generate the GAPs list reading the INDEL inside the integer alignment
+	 * 
+	 * @throws SALSAException
+	 */
+	private void createGAPs() throws SALSAException {
 		// If it is NULL, there are no GAPs opened
 		GAP g = null;
 		GAP previous;
 
-		String currentSequence;
-		int[] convertedSequence;
-
 		for (int row = 0; row < this.numberOfSequences; row++) {
 			previous = null;
-			currentSequence = seq.get(row);
-			convertedSequence = convert(currentSequence);
 
 			for (int column = 0; column < this.length; column++) {
-				this.alignMatrix[row * this.length + column] = convertedSequence[column];
-				if (convertedSequence[column] == this.alphabet.INDEL()) {
+				if (this.alignMatrix[row * this.length + column] == this.alphabet.INDEL()) {
 					if (g == null) {
 						g = new GAP(row, column, this.length, previous, null);
 						if (previous != null) {
@@ -463,22 +899,59 @@ public final class Alignment {
 	}
 
 	/**
-	 * Used by pre-processing
+	 * Generate the GAPs list from the GAPs sorted by row and by begin (row,
+	 * begin and end of each one) and from their positions inside the list
 	 * 
-	 * @param s
-	 * @return
+	 * @param gaps
+	 * @param positions
 	 * @throws SALSAException
+	 *             if the GAPs are not sorted, overlap or the positions are
+	 *             not a permutation
 	 */
-	private int[] convert(String s) throws SALSAException {
-		int[] sequenceOfNumbers = new int[this.length];
-		
-		// Avoid case errors
-		String upperInput = s.toUpperCase(); 
-		for (int c = 0; c < this.length; c++) {
-			sequenceOfNumbers[c] = this.alphabet.charToInt(upperInput.charAt(c));
+	private void createGAPs(final int[] gaps, final int[] positions) throws SALSAException {
+		int numberOfGAPs = positions.length;
+		if (gaps.length != numberOfGAPs * 3) {
+			throw new SALSAException("Error: the GAPs do not match the alignment");
 		}
 
-		return sequenceOfNumbers;
+		GAP[] list = new GAP[numberOfGAPs];
+		GAP previous = null;
+
+		for (int i = 0; i < numberOfGAPs; i++) {
+			int row = gaps[i * 3];
+			int begin = gaps[i * 3 + 1];
+			int end = gaps[i * 3 + 2];
+
+			if (previous != null && previous.getRow() != row) {
+				if (previous.getRow() > row) {
+					throw new SALSAException("Error: the GAPs do not match the alignment");
+				}
+				previous = null;
+			}
+			// A GAP must be separated by at least one residue from the
+			// previous one
+			if (row < 0 || row >= this.numberOfSequences || begin < 0 || end < begin
+					|| (previous != null && begin <= previous.getEnd() + 1)) {
+				throw new SALSAException("Error: the GAPs do not match the alignment");
+			}
+
+			GAP g = new GAP(row, begin, this.length, previous, null, end - begin + 1);
+			if (previous != null) {
+				previous.setNext(g);
+			}
+
+			int position = positions[i];
+			if (position < 0 || position >= numberOfGAPs || list[position] != null) {
+				throw new SALSAException("Error: the GAPs do not match the alignment");
+			}
+			list[position] = g;
+			previous = g;
+		}
+
+		this.GAPS.ensureCapacity(numberOfGAPs);
+		for (GAP g : list) {
+			this.GAPS.add(g);
+		}
 	}
 
 	private void createCounters() {
@@ -499,8 +972,45 @@ public final class Alignment {
 		}
 	}
 
+	private void createColumnProfile() {
+		int dimension = this.alphabet.dimension() + 1;
+		this.columnProfile = new double[dimension * this.length];
+
+		for (int column = 0; column < this.length; column++) {
+			for (int x = 0; x < dimension; x++) {
+				double value = 0;
+				for (int alpha = 0; alpha < dimension; alpha++) {
+					value += this.countersMatrix[alpha * this.length + column]
+							* this.scoreTable[x * dimension + alpha];
+				}
+				this.columnProfile[column * dimension + x] = value;
+			}
+		}
+	}
+
 	/**
-	 * Score of two sequences in the specified rows (used by WSP). It requires
+	 * Number of GAPs that pay the opening penalty in each row
+	 * 
+	 * @return
+	 */
+	private int[] countGAPS() {
+		// Int array already initialize at 0
+		int[] numberOfGAPS = new int[numberOfSequences];
+		GAP g;
+
+		for (int i = 0; i < this.GAPS.size(); i++) {
+			g = this.GAPS.get(i);
+
+			if (this.terminal == TerminalGAPsStrategy.BOTH_PENALTIES
+					|| !g.terminalGAP()) {
+				numberOfGAPS[g.getRow()]++;
+			}
+		}
+		return numberOfGAPS;
+	}
+
+	/**
+	 * Score of two sequences in the specified rows (used by pairwiseWSP). It requires
 	 * also the number of GAPS inside the rows
 	 * 
 	 * @param row1
@@ -512,11 +1022,12 @@ public final class Alignment {
 	private double pairwise(int row1, int row2, int numberOfGAPSr1,
 			int numberOfGAPSr2) {
 		double value = 0;
+		int dimension = this.alphabet.dimension() + 1;
 		int alpha, beta;
 		for (int column = 0; column < this.length; column++) {
 			alpha = this.alignMatrix[row1 * this.length + column];
 			beta = this.alignMatrix[row2 * this.length + column];
-			value += this.substitution.score(alpha, beta);
+			value += this.scoreTable[alpha * dimension + beta];
 		}
 
 		value -= this.GOP * (numberOfGAPSr1 + numberOfGAPSr2);
@@ -536,27 +1047,64 @@ public final class Alignment {
 	private double changeCell(int row, int column, int newCharacter) {
 		// align
 		int oldCharacter = this.alignMatrix[row * this.length + column];
+		int dimension = this.alphabet.dimension() + 1;
+		// Rows of the score table of the two characters
+		int newScores = newCharacter * dimension;
+		int oldScores = oldCharacter * dimension;
+		double delta = 0.0f;
+
+		if (this.deltaEngine == DeltaEngine.COLUMN_PROFILE) {
+			// The profile contains also the current row: its contribution is
+			// removed
+			int position = column * dimension;
+			delta = this.columnProfile[position + newCharacter]
+					- this.columnProfile[position + oldCharacter]
+					- weights[row] * (this.scoreTable[newScores + oldCharacter] - this.scoreTable[oldScores
+							+ oldCharacter]);
+			delta *= weights[row];
+
+			updateColumnProfile(row, column, oldCharacter, newCharacter);
+		}
+
 		// counters
 		this.countersMatrix[oldCharacter * this.length + column] -= weights[row];
 
-		double delta = 0.0f;
-		for (int alpha = 0; alpha <= this.alphabet.dimension(); alpha++) {
-			delta +=
-			// counters
-			this.countersMatrix[alpha * this.length + column]
-					* (this.substitution.score(newCharacter, alpha) - this.substitution
-							.score(oldCharacter, alpha));
+		if (this.deltaEngine == DeltaEngine.COUNTERS) {
+			for (int alpha = 0; alpha < dimension; alpha++) {
+				delta +=
+				// counters
+				this.countersMatrix[alpha * this.length + column]
+						* (this.scoreTable[newScores + alpha] - this.scoreTable[oldScores + alpha]);
+			}
+			delta *= weights[row];
 		}
-		delta *= weights[row];
 
 		// counters
 		this.countersMatrix[newCharacter * this.length + column] += weights[row];
 		// align
-		this.alignMatrix[row * this.length + column] = newCharacter;
+		this.alignMatrix[row * this.length + column] = (byte) newCharacter;
 
 		return delta;
 	}
 
+	/**
+	 * Update the profile of the column after the character in position (row,
+	 * column) has been changed from oldCharacter to newCharacter
+	 * 
+	 * @param row
+	 * @param column
+	 * @param oldCharacter
+	 * @param newCharacter
+	 */
+	private void updateColumnProfile(int row, int column, int oldCharacter, int newCharacter) {
+		int dimension = this.alphabet.dimension() + 1;
+		int position = column * dimension;
+		for (int x = 0; x < dimension; x++) {
+			this.columnProfile[position + x] += weights[row]
+					* (this.scoreTable[x * dimension + newCharacter] - this.scoreTable[x * dimension + oldCharacter]);
+		}
+	}
+
 	/**
 	 * Same as changeCell, but here the improvement is not calculated
 	 * 
@@ -573,6 +1121,10 @@ public final class Alignment {
 		// counters
 		this.countersMatrix[newCharacter * this.length + column] += weights[row];
 		// align
-		this.alignMatrix[row * this.length + column] = newCharacter;
+		this.alignMatrix[row * this.length + column] = (byte) newCharacter;
+
+		if (this.deltaEngine == DeltaEngine.COLUMN_PROFILE) {
+			updateColumnProfile(row, column, oldCharacter, newCharacter);
+		}
 	}
 }
@@ -0,0 +1,427 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.salsaw.msalsa.algorithm.enums.DeltaEngine;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Binary copy of an {@link Alignment}, eventually together with the state of
+ * the local search that is working on it.
+ * <p>
+ * The snapshot contains the alignment already converted in the integer form,
+ * the weights, the substitution matrix, the counters and the GAPs with the
+ * order used by the local search: reloading it does not require to parse the
+ * FASTA and Newick files or to calculate anything, so it takes few
+ * milliseconds. It is used to checkpoint long searches and to repeat the
+ * searches on the same input without preprocessing.
+ * </p>
+ * <p>
+ * All the sections have a fixed layout (big endian numbers, arrays preceded
+ * by their length) and the file is memory mapped when it is read.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class AlignmentSnapshot {
+	// CONSTANTS
+	private static final byte[] MAGIC = { 'M', 'S', 'A', 'L', 'S', 'N', 'A', 'P' };
+	private static final int VERSION = 3;
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+	// FIELDS
+	private final Alignment alignment;
+	private final LocalSearchState searchState;
+
+	// CONSTRUCTOR
+	private AlignmentSnapshot(final Alignment alignment, final LocalSearchState searchState) {
+		this.alignment = alignment;
+		this.searchState = searchState;
+	}
+
+	// GET / SET
+	public final Alignment getAlignment() {
+		return this.alignment;
+	}
+
+	/**
+	 * The state of the local search saved with the alignment, null if the
+	 * snapshot does not contain it
+	 *
+	 * @return
+	 */
+	public final LocalSearchState getSearchState() {
+		return this.searchState;
+	}
+
+	// METHODS
+	public static final void save(final Alignment alignment, final String destinationFilePath)
+			throws IOException {
+		save(alignment, null, destinationFilePath);
+	}
+
+	/**
+	 * Write the snapshot of the alignment and of the search state (that could
+	 * be null). The snapshot is written in a temporary file that then replaces
+	 * the destination one: an interruption while writing never leaves a
+	 * partial snapshot, and the previous one remains valid.
+	 *
+	 * @param alignment
+	 * @param searchState
+	 * @param destinationFilePath
+	 * @throws IOException
+	 */
+	public static final void save(final Alignment alignment, final LocalSearchState searchState,
+			final String destinationFilePath) throws IOException {
+		Path destinationFile = Paths.get(destinationFilePath);
+		Path temporaryFile = destinationFile.resolveSibling(destinationFile.getFileName() + TEMPORARY_FILE_SUFFIX);
+		try {
+			write(alignment, searchState, temporaryFile);
+			Files.move(temporaryFile, destinationFile, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	/**
+	 * Read a snapshot written by {@link #save(Alignment, LocalSearchState, String)}
+	 *
+	 * @param sourceFilePath
+	 * @return
+	 * @throws IOException
+	 * @throws SALSAException
+	 *             if the file is not a valid snapshot
+	 */
+	public static final AlignmentSnapshot load(final String sourceFilePath) throws IOException, SALSAException {
+		try (FileChannel channel = FileChannel.open(Paths.get(sourceFilePath), StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+
+			byte[] magic = new byte[MAGIC.length];
+			buffer.get(magic);
+			if (!Arrays.equals(magic, MAGIC)) {
+				throw new SALSAException("Error: " + sourceFilePath + " is not an alignment snapshot");
+			}
+			int version = buffer.getInt();
+			if (version != VERSION) {
+				throw new SALSAException("Error: version " + version + " of the alignment snapshot is not supported");
+			}
+
+			// Parameters
+			double gop = buffer.getDouble();
+			TerminalGAPsStrategy terminal = TerminalGAPsStrategy.valueOf(getString(buffer));
+			DeltaEngine deltaEngine = DeltaEngine.valueOf(getString(buffer));
+
+			// Substitution matrix
+			char[] symbols = new char[getLength(buffer, 1)];
+			for (int i = 0; i < symbols.length; i++) {
+				symbols[i] = (char) (buffer.get() & 0xFF);
+			}
+			double gep = buffer.getDouble();
+			SubstitutionMatrix substitution = new SubstitutionMatrix(new Alphabet(symbols), getInts(buffer), gep);
+
+			// Sequences
+			int numberOfSequences = getLength(buffer, 4);
+			int length = getLength(buffer, numberOfSequences);
+			String[] properties = new String[numberOfSequences];
+			for (int i = 0; i < numberOfSequences; i++) {
+				properties[i] = getString(buffer);
+			}
+			double weightsSUM = buffer.getDouble();
+			double[] weights = getDoubles(buffer);
+			byte[] alignMatrix = getBytes(buffer);
+			double[] countersMatrix = getDoubles(buffer);
+			double[] columnProfile = getDoubles(buffer);
+			if (weights.length != numberOfSequences || alignMatrix.length != numberOfSequences * length
+					|| countersMatrix.length != (symbols.length + 1) * length
+					|| (columnProfile.length != 0 && columnProfile.length != countersMatrix.length)
+					|| (columnProfile.length == 0) == (deltaEngine == DeltaEngine.COLUMN_PROFILE)) {
+				throw new SALSAException("Error: the alignment snapshot is corrupted");
+			}
+			int[] gaps = getInts(buffer);
+			int[] gapsPositions = getInts(buffer);
+
+			Alignment alignment = new Alignment(properties, length, alignMatrix, substitution, weights, weightsSUM,
+					gop, terminal, countersMatrix, deltaEngine, columnProfile.length == 0 ? null : columnProfile,
+					gaps, gapsPositions);
+
+			// Local search
+			LocalSearchState searchState = null;
+			if (buffer.get() != 0) {
+				long randomState = buffer.getLong();
+				int iterations = buffer.getInt();
+				int lastImprovement = buffer.getInt();
+				double initialScore = buffer.getDouble();
+				double improvement = buffer.getDouble();
+				double windowImprovement = buffer.getDouble();
+				int acceptedMoves = buffer.getInt();
+				int splits = buffer.getInt();
+				int unifications = buffer.getInt();
+				int blockMoves = buffer.getInt();
+				double initialTemperature = buffer.getDouble();
+				double temperature = buffer.getDouble();
+				double calibrationSum = buffer.getDouble();
+				int calibrationMoves = buffer.getInt();
+				double bestImprovement = buffer.getDouble();
+				byte[] bestMatrix = getBytes(buffer);
+				if (bestMatrix.length != 0 && bestMatrix.length != alignMatrix.length) {
+					throw new SALSAException("Error: the alignment snapshot is corrupted");
+				}
+				searchState = new LocalSearchState(randomState, iterations, lastImprovement, initialScore,
+						improvement, windowImprovement, acceptedMoves, splits, unifications, blockMoves,
+						initialTemperature, temperature, calibrationSum, calibrationMoves, bestImprovement,
+						bestMatrix.length == 0 ? null : bestMatrix);
+			}
+
+			return new AlignmentSnapshot(alignment, searchState);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new SALSAException("Error: the alignment snapshot is corrupted");
+		}
+	}
+
+	// PRIVATE METHODS
+	private static void write(final Alignment alignment, final LocalSearchState searchState,
+			final Path destinationFile) throws IOException {
+		try (FileChannel channel = FileChannel.open(destinationFile, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+			buffer.put(MAGIC);
+			buffer.putInt(VERSION);
+
+			// Parameters
+			buffer.putDouble(alignment.getGOP());
+			putString(channel, buffer, alignment.getTerminalGAPStrategy().name());
+			putString(channel, buffer, alignment.getDeltaEngine().name());
+
+			// Substitution matrix
+			SubstitutionMatrix substitution = alignment.getSubstitutionMatrix();
+			char[] symbols = substitution.getAlphabet().getAlphabet();
+			buffer.putInt(symbols.length);
+			for (char symbol : symbols) {
+				ensureRemaining(channel, buffer, 1);
+				buffer.put((byte) symbol);
+			}
+			ensureRemaining(channel, buffer, 8);
+			buffer.putDouble(substitution.getGEP());
+			putInts(channel, buffer, substitution.getMatrix());
+
+			// Sequences
+			String[] properties = alignment.getProperties();
+			ensureRemaining(channel, buffer, 8);
+			buffer.putInt(properties.length);
+			buffer.putInt(alignment.getLength());
+			for (String property : properties) {
+				putString(channel, buffer, property);
+			}
+			ensureRemaining(channel, buffer, 8);
+			buffer.putDouble(alignment.getWeightsSUM());
+			putDoubles(channel, buffer, alignment.getWeights());
+			putBytes(channel, buffer, alignment.getAlignMatrix());
+			putDoubles(channel, buffer, alignment.getCountersMatrix());
+			double[] columnProfile = alignment.getColumnProfile();
+			putDoubles(channel, buffer, columnProfile == null ? new double[0] : columnProfile);
+
+			// GAPs, sorted by row and by begin, and their positions inside
+			// the list (the order of the list is used by the local search)
+			GAPList gaps = alignment.getGAPS();
+			GAP[] firstGAPs = new GAP[properties.length];
+			for (int i = 0; i < gaps.size(); i++) {
+				GAP g = gaps.get(i);
+				if (g.getPrevious() == null) {
+					firstGAPs[g.getRow()] = g;
+				}
+			}
+			int[] gapsData = new int[gaps.size() * 3];
+			int[] gapsPositions = new int[gaps.size()];
+			int i = 0;
+			for (GAP first : firstGAPs) {
+				for (GAP g = first; g != null; g = g.getNext()) {
+					gapsData[i * 3] = g.getRow();
+					gapsData[i * 3 + 1] = g.getBegin();
+					gapsData[i * 3 + 2] = g.getEnd();
+					gapsPositions[i] = g.getSlot();
+					i++;
+				}
+			}
+			putInts(channel, buffer, gapsData);
+			putInts(channel, buffer, gapsPositions);
+
+			// Local search
+			ensureRemaining(channel, buffer, 128);
+			if (searchState == null) {
+				buffer.put((byte) 0);
+			} else {
+				buffer.put((byte) 1);
+				buffer.putLong(searchState.getRandomState());
+				buffer.putInt(searchState.getIterations());
+				buffer.putInt(searchState.getLastImprovement());
+				buffer.putDouble(searchState.getInitialScore());
+				buffer.putDouble(searchState.getImprovement());
+				buffer.putDouble(searchState.getWindowImprovement());
+				buffer.putInt(searchState.getAcceptedMoves());
+				buffer.putInt(searchState.getSplits());
+				buffer.putInt(searchState.getUnifications());
+				buffer.putInt(searchState.getBlockMoves());
+				buffer.putDouble(searchState.getInitialTemperature());
+				buffer.putDouble(searchState.getTemperature());
+				buffer.putDouble(searchState.getCalibrationSum());
+				buffer.putInt(searchState.getCalibrationMoves());
+				buffer.putDouble(searchState.getBestImprovement());
+				byte[] bestMatrix = searchState.getBestMatrix();
+				putBytes(channel, buffer, bestMatrix == null ? new byte[0] : bestMatrix);
+			}
+
+			flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Write the content of the buffer and make it ready for new data when
+	 * there are less than the required bytes available
+	 * 
+	 * @param channel
+	 * @param buffer
+	 * @param required
+	 * @throws IOException
+	 */
+	private static void ensureRemaining(final WritableByteChannel channel, final ByteBuffer buffer,
+			final int required) throws IOException {
+		if (buffer.remaining() < required) {
+			flush(channel, buffer);
+		}
+	}
+
+	private static void flush(final WritableByteChannel channel, final ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private static void putString(final WritableByteChannel channel, final ByteBuffer buffer, final String value)
+			throws IOException {
+		putBytes(channel, buffer, value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void putBytes(final WritableByteChannel channel, final ByteBuffer buffer, final byte[] values)
+			throws IOException {
+		ensureRemaining(channel, buffer, 4);
+		buffer.putInt(values.length);
+
+		if (values.length <= buffer.remaining()) {
+			buffer.put(values);
+		} else {
+			// Large arrays are written directly, without copying them
+			flush(channel, buffer);
+			ByteBuffer wrapped = ByteBuffer.wrap(values);
+			while (wrapped.hasRemaining()) {
+				channel.write(wrapped);
+			}
+		}
+	}
+
+	private static void putInts(final WritableByteChannel channel, final ByteBuffer buffer, final int[] values)
+			throws IOException {
+		ensureRemaining(channel, buffer, 4);
+		buffer.putInt(values.length);
+
+		int position = 0;
+		while (position < values.length) {
+			ensureRemaining(channel, buffer, 4);
+			int count = Math.min(values.length - position, buffer.remaining() / 4);
+			buffer.asIntBuffer().put(values, position, count);
+			buffer.position(buffer.position() + count * 4);
+			position += count;
+		}
+	}
+
+	private static void putDoubles(final WritableByteChannel channel, final ByteBuffer buffer,
+			final double[] values) throws IOException {
+		ensureRemaining(channel, buffer, 4);
+		buffer.putInt(values.length);
+
+		int position = 0;
+		while (position < values.length) {
+			ensureRemaining(channel, buffer, 8);
+			int count = Math.min(values.length - position, buffer.remaining() / 8);
+			buffer.asDoubleBuffer().put(values, position, count);
+			buffer.position(buffer.position() + count * 8);
+			position += count;
+		}
+	}
+
+	/**
+	 * Read the length of an array and check that the file contains all its
+	 * elements, so that a corrupted file does not allocate huge arrays
+	 * 
+	 * @param buffer
+	 * @param elementSize
+	 *            bytes of each element
+	 * @return
+	 * @throws SALSAException
+	 */
+	private static int getLength(final ByteBuffer buffer, final int elementSize) throws SALSAException {
+		int length = buffer.getInt();
+		if (length < 0 || (long) length * elementSize > buffer.remaining()) {
+			throw new SALSAException("Error: the alignment snapshot is corrupted");
+		}
+		return length;
+	}
+
+	private static String getString(final ByteBuffer buffer) throws SALSAException {
+		return new String(getBytes(buffer), StandardCharsets.UTF_8);
+	}
+
+	private static byte[] getBytes(final ByteBuffer buffer) throws SALSAException {
+		byte[] values = new byte[getLength(buffer, 1)];
+		buffer.get(values);
+		return values;
+	}
+
+	private static int[] getInts(final ByteBuffer buffer) throws SALSAException {
+		int[] values = new int[getLength(buffer, 4)];
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + values.length * 4);
+		return values;
+	}
+
+	private static double[] getDoubles(final ByteBuffer buffer) throws SALSAException {
+		double[] values = new double[getLength(buffer, 8)];
+		buffer.asDoubleBuffer().get(values);
+		buffer.position(buffer.position() + values.length * 8);
+		return values;
+	}
+}
@@ -16,9 +16,8 @@
 package com.salsaw.msalsa.algorithm;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Scanner;
 
 import com.salsaw.msalsa.algorithm.enums.AlphabetType;
@@ -44,27 +43,51 @@ public class Alphabet {
 	private static final char[] ALPHABET_RNA = ALPHABET_DNA;
 	private static final char[] ALPHABET_PROTEINS = new char[] {'A', 'R', 'N', 'D', 'C','Q','E','G','H','I','L','K','M','F','P','S','T','W','Y','V','B','Z','X'};
 	public static final char GAP_SYMBOL = '-';
+	/**
+	 * Number of characters that can be part of an alphabet: the symbols are
+	 * single bytes inside the FASTA files
+	 */
+	private static final int NUMBER_OF_SYMBOLS = 256;
 	
 	// FIELDS
 	private final int numberOfCharacters;
 	private final char[] alphabet;	
-	private final Map<Integer, Character> symbolMapIntKey = new HashMap<>();
-	private final Map<Character, Integer> symbolMapCharKey = new HashMap<>();
+	/**
+	 * Integer form of every symbol, -1 for the symbols outside the alphabet.
+	 * The lower case and the upper case of a letter have the same integer
+	 * form, unless the alphabet contains both of them.
+	 */
+	private final int[] symbolToInt = new int[NUMBER_OF_SYMBOLS];
+	/**
+	 * Symbol of every integer form, INDEL included
+	 */
+	private final byte[] intToSymbol;
 
 	// CONSTRUCTOR
 	
 	public Alphabet(final char[] alphabet){
 		this.alphabet = alphabet;
 		this.numberOfCharacters = this.alphabet.length;
+		this.intToSymbol = new byte[this.numberOfCharacters + 1];
 		
-		// Init maps
+		// Init tables
+		Arrays.fill(this.symbolToInt, -1);
+		for (int i = 0; i < this.numberOfCharacters; i++) {
+			char symbol = this.alphabet[i];
+			if (symbol >= NUMBER_OF_SYMBOLS) {
+				throw new IllegalArgumentException("The alphabet can contain only single byte characters");
+			}
+			this.intToSymbol[i] = (byte) symbol;
+			this.symbolToInt[Character.toLowerCase(symbol)] = i;
+			this.symbolToInt[Character.toUpperCase(symbol)] = i;
+		}
+		// The exact symbols win over the case folding
 		for (int i = 0; i < this.numberOfCharacters; i++) {
-			this.symbolMapIntKey.put(i, this.alphabet[i]);
-			this.symbolMapCharKey.put(this.alphabet[i], i);
+			this.symbolToInt[this.alphabet[i]] = i;
 		}
 		// this.numberOfCharacters as INDEL
-		this.symbolMapIntKey.put(this.numberOfCharacters, GAP_SYMBOL);
-		this.symbolMapCharKey.put(GAP_SYMBOL, this.numberOfCharacters);
+		this.intToSymbol[this.numberOfCharacters] = GAP_SYMBOL;
+		this.symbolToInt[GAP_SYMBOL] = this.numberOfCharacters;
 	}
 	
 	public Alphabet(final String matrixInputLine) throws SALSAException{
@@ -143,8 +166,8 @@ public class Alphabet {
 	 * @throws SALSAException
 	 */
 	public final int charToInt(char c) throws SALSAException {
-		Integer value = this.symbolMapCharKey.getOrDefault(c, null);
-		if(value == null){
+		int value = (c < NUMBER_OF_SYMBOLS) ? this.symbolToInt[c] : -1;
+		if(value == -1){
 			throw new SALSAException("Alphabet doesn't contain character \'" + c + "\'.");
 		}
 		return value;		
@@ -167,12 +190,64 @@ public class Alphabet {
 	 * @throws SALSAException
 	 */
 	public final char intToChar(int i) throws SALSAException {
-		Character value = this.symbolMapIntKey.getOrDefault(i, null);
-		if(value == null){
+		if(i < 0 || i >= this.intToSymbol.length){
+			throw new SALSAException("Error while saving the alignment");
+		}
+		return (char) (this.intToSymbol[i] & 0xFF);
+	}
+
+	/**
+	 * Convert the symbols (single byte characters) in src to their integer
+	 * form and write them in dst. src and dst can be the same array.
+	 * 
+	 * @param src
+	 * @param dst
+	 * @throws SALSAException
+	 *             if a symbol is not part of the alphabet
+	 */
+	public final void encode(final byte[] src, final byte[] dst) throws SALSAException {
+		encode(src, 0, dst, 0, src.length);
+	}
+
+	public final void encode(final byte[] src, final int srcPosition, final byte[] dst, final int dstPosition,
+			final int length) throws SALSAException {
+		if (this.numberOfCharacters > Byte.MAX_VALUE) {
+			throw new SALSAException("Error: the alphabet has too many characters");
+		}
+		int[] table = this.symbolToInt;
+		for (int i = 0; i < length; i++) {
+			int value = table[src[srcPosition + i] & 0xFF];
+			if (value == -1) {
+				throw new SALSAException(
+						"Alphabet doesn't contain character \'" + (char) (src[srcPosition + i] & 0xFF) + "\'.");
+			}
+			dst[dstPosition + i] = (byte) value;
+		}
+	}
+
+	/**
+	 * Convert the integer forms in src to their symbols and write them in
+	 * dst. src and dst can be the same array.
+	 * 
+	 * @param src
+	 * @param dst
+	 * @throws SALSAException
+	 *             if an integer is not part of the alphabet
+	 */
+	public final void decode(final byte[] src, final byte[] dst) throws SALSAException {
+		decode(src, 0, dst, 0, src.length);
+	}
+
+	public final void decode(final byte[] src, final int srcPosition, final byte[] dst, final int dstPosition,
+			final int length) throws SALSAException {
+		byte[] table = this.intToSymbol;
+		try {
+			for (int i = 0; i < length; i++) {
+				dst[dstPosition + i] = table[src[srcPosition + i]];
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
 			throw new SALSAException("Error while saving the alignment");
 		}
-		return value;
-		
 	}
 
 	/**
@@ -15,11 +15,6 @@
  */
 package com.salsaw.msalsa.algorithm;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-
 import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
 
 /**
@@ -29,18 +24,18 @@ import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
 public final class AlphabetOptimizer {
 	
 	// FIELDS
-	private final int[] alignMatrix;
+	private final byte[] alignMatrix;
 	private Alphabet alphabet;
 	
 	
 	// CONSTRUCTORS
-	public AlphabetOptimizer(final int[] alignMatrix, final Alphabet alphabet) {
+	public AlphabetOptimizer(final byte[] alignMatrix, final Alphabet alphabet) {
 		this.alignMatrix = alignMatrix;
 		this.alphabet = alphabet;
 	}	
 	
 	// GET / SET
-	public final int[] getAlignMatrix() {
+	public final byte[] getAlignMatrix() {
 		return this.alignMatrix;
 	}
 	
@@ -58,46 +53,41 @@ public final class AlphabetOptimizer {
 	 */
 	public final boolean tryOptimize() throws SALSAException {		
 		// Try to optimize alphabet size	
-		Set<Integer> usedAlphabetChars = new  HashSet<>();
-		for (int alignElement : this.alignMatrix){
-			usedAlphabetChars.add(alignElement);			
+		int gapPosition = this.alphabet.INDEL();
+		boolean[] usedAlphabetChars = new boolean[gapPosition + 1];
+		int numberOfUsedChars = 0;
+		for (byte alignElement : this.alignMatrix){
+			if (usedAlphabetChars[alignElement] == false && alignElement != gapPosition) {
+				usedAlphabetChars[alignElement] = true;
+				numberOfUsedChars++;
+			}
 		}
 		
-		if (usedAlphabetChars.size() -1 != this.alphabet.getNumberOfCharacters()) {
+		if (numberOfUsedChars != this.alphabet.getNumberOfCharacters()) {
 			
-			// Create a new alphabet that contains only necessary symbols
-			char[] optimizedAlphabetArray = new char[usedAlphabetChars.size() -1];
+			// Create a new alphabet that contains only necessary symbols,
+			// in the same order of the old one
+			char[] optimizedAlphabetArray = new char[numberOfUsedChars];
+			// Table to convert matrix from old alphabet to new one
+			byte[] oldToNewConversion = new byte[gapPosition + 1];
 
-			// Get characters from int
 			int i = 0;
-			int gapPosition = this.alphabet.charToInt(Alphabet.GAP_SYMBOL);
-			for (Integer val : usedAlphabetChars) {
-				if (val != gapPosition){
+			for (int val = 0; val < gapPosition; val++) {
+				if (usedAlphabetChars[val] == true){
+					oldToNewConversion[val] = (byte) i;
 					optimizedAlphabetArray[i++] = this.alphabet.intToChar(val);
 				}
 			}
 			
 			Alphabet optimizedAlphabet = new Alphabet(optimizedAlphabetArray);
-
-			// Create map to convert matrix from old alphabet to new one
-			Map<Integer, Integer> oldToNewConversionMap = new HashMap<>();
-			oldToNewConversionMap.put(gapPosition, optimizedAlphabet.charToInt(Alphabet.GAP_SYMBOL));
-			for (char optimizedAlphabetSymbol : optimizedAlphabetArray) {
-				int oldAlphabetIndex = this.alphabet.charToInt(optimizedAlphabetSymbol);
-				int optimizedAlphabetindex = optimizedAlphabet.charToInt(optimizedAlphabetSymbol);
-				if (oldAlphabetIndex != optimizedAlphabetindex){
-					oldToNewConversionMap.put(oldAlphabetIndex, optimizedAlphabetindex);				
-				}
-			}
+			oldToNewConversion[gapPosition] = (byte) optimizedAlphabet.INDEL();
 			
 			// Use smaller alphabet instead of bigger one
 			this.alphabet = optimizedAlphabet;
 			
 			// Update alignment matrix with new indexes
 			for (int j = 0; j< this.alignMatrix.length; j++){
-				if (oldToNewConversionMap.containsKey(alignMatrix[j]) == true){
-					this.alignMatrix[j] = oldToNewConversionMap.get(alignMatrix[j]);	
-				}
+				this.alignMatrix[j] = oldToNewConversion[this.alignMatrix[j]];
 			}			
 			
 			return true;
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Open the input and output files, compressed with gzip or not.
+ * <p>
+ * An input file is compressed if it starts with the gzip magic bytes,
+ * whatever its name is. An output file is compressed if its name ends with
+ * {@link Constants#GZIP_FILE_EXSTENSION}.
+ * </p>
+ * 
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class CompressedFiles {
+	// CONSTANTS
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int GZIP_MAGIC_FIRST_BYTE = 0x1f;
+	private static final int GZIP_MAGIC_SECOND_BYTE = 0x8b;
+
+	// CONSTRUCTOR
+	private CompressedFiles() {
+	}
+
+	// METHODS
+	/**
+	 * TRUE if the file starts with the gzip magic bytes
+	 * 
+	 * @param filePath
+	 * @return
+	 * @throws IOException
+	 */
+	public static boolean isCompressed(final String filePath) throws IOException {
+		try (InputStream in = Files.newInputStream(Paths.get(filePath))) {
+			return in.read() == GZIP_MAGIC_FIRST_BYTE && in.read() == GZIP_MAGIC_SECOND_BYTE;
+		}
+	}
+
+	/**
+	 * TRUE if the output written in the file will be compressed
+	 * 
+	 * @param filePath
+	 * @return
+	 */
+	public static boolean isCompressedOutput(final String filePath) {
+		return filePath.endsWith(Constants.GZIP_FILE_EXSTENSION);
+	}
+
+	/**
+	 * Open the file for reading, decompressing its content if it is
+	 * compressed
+	 * 
+	 * @param filePath
+	 * @return
+	 * @throws IOException
+	 */
+	public static InputStream openInput(final String filePath) throws IOException {
+		return openInput(Files.newInputStream(Paths.get(filePath)));
+	}
+
+	/**
+	 * Decompress the stream if it starts with the gzip magic bytes
+	 * 
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static InputStream openInput(final InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+		buffered.mark(2);
+		boolean compressed = buffered.read() == GZIP_MAGIC_FIRST_BYTE
+				&& buffered.read() == GZIP_MAGIC_SECOND_BYTE;
+		buffered.reset();
+
+		if (compressed) {
+			return new GZIPInputStream(buffered, BUFFER_SIZE);
+		}
+		return buffered;
+	}
+
+	/**
+	 * Open the file for writing, compressing the content if the name of the
+	 * file ends with {@link Constants#GZIP_FILE_EXSTENSION}
+	 * 
+	 * @param filePath
+	 * @return
+	 * @throws IOException
+	 */
+	public static OutputStream openOutput(final String filePath) throws IOException {
+		OutputStream out = Files.newOutputStream(Paths.get(filePath));
+		if (isCompressedOutput(filePath)) {
+			return new GZIPOutputStream(out, BUFFER_SIZE);
+		}
+		return out;
+	}
+
+	/**
+	 * Write the decompressed content of a file in a new temporary file, in the
+	 * same folder. Existing files are never replaced: the name of the new
+	 * file is unique, and the caller must delete it when it is not needed
+	 * anymore.
+	 * 
+	 * @param compressedFilePath
+	 * @param suffix
+	 *            end of the name of the new file
+	 * @return The path of the new file
+	 * @throws IOException
+	 */
+	public static String decompressToTemporaryFile(final String compressedFilePath, final String suffix)
+			throws IOException {
+		Path compressedFile = Paths.get(compressedFilePath).toAbsolutePath();
+		String prefix = removeCompressedExtension(compressedFile.getFileName().toString());
+		int extension = prefix.lastIndexOf('.');
+		if (extension > 0) {
+			prefix = prefix.substring(0, extension);
+		}
+
+		Path destination = Files.createTempFile(compressedFile.getParent(), prefix + "-", suffix);
+		try (InputStream in = openInput(compressedFilePath)) {
+			// Only the empty file just created is replaced
+			Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			Files.deleteIfExists(destination);
+			throw e;
+		}
+		return destination.toString();
+	}
+
+	/**
+	 * The path without the gzip extension
+	 * 
+	 * @param filePath
+	 * @return
+	 */
+	public static String removeCompressedExtension(final String filePath) {
+		if (isCompressedOutput(filePath)) {
+			return filePath.substring(0, filePath.length() - Constants.GZIP_FILE_EXSTENSION.length());
+		}
+		return filePath;
+	}
+}
@@ -23,4 +23,5 @@ public final class Constants {
 	public static final String NEW_LINE = System.getProperty("line.separator");
 	public static final String FASTA_FILE_EXSTENSION = ".fasta";
 	public static final String CLUSTAL_FILE_EXSTENSION = ".aln";
+	public static final String GZIP_FILE_EXSTENSION = ".gz";
 }
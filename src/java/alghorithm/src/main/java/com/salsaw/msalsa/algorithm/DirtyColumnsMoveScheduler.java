@@ -0,0 +1,123 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+/**
+ * Avoid repeating the movements that have already failed.
+ * <p>
+ * A movement only reads the columns that the GAP could reach (at most gamma
+ * positions in each direction) and the cells next to them, so it fails again
+ * until one of those columns is changed by another movement. Every accepted
+ * movement increases a counter and stores it in the columns it could have
+ * changed; every failed movement without split stores the counter inside
+ * the GAP, for its direction. A GAP is clean in a direction when no column near it changed
+ * after its last failure in that direction.
+ * </p>
+ * <p>
+ * The scheduler samples some GAPs and returns the first one that is not
+ * clean in both directions, preferring the direction that is not clean. When
+ * all the sampled GAPs are clean, the last one is returned anyway: the
+ * movements that split the GAP choose a random point, so they could still
+ * succeed.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+final class DirtyColumnsMoveScheduler implements MoveScheduler {
+	/**
+	 * Maximum number of GAPs sampled to find one that is not clean
+	 */
+	static final int MAX_SAMPLES = 8;
+
+	// FIELDS
+	private final int gamma;
+	/**
+	 * Value of the counter of the changes when each column changed for the
+	 * last time
+	 */
+	private final int[] lastChanges;
+	private int changes;
+
+	// CONSTRUCTOR
+	DirtyColumnsMoveScheduler(final int length, final int gamma) {
+		this.gamma = gamma;
+		this.lastChanges = new int[length];
+	}
+
+	// METHODS
+	@Override
+	public GAP nextGAP(final GAPList gaps, final FastRandom random) {
+		GAP g = null;
+		for (int i = 0; i < MAX_SAMPLES; i++) {
+			g = gaps.sample(random);
+			int lastChange = lastChange(g);
+			if (g.getFailure(true) < lastChange || g.getFailure(false) < lastChange) {
+				return g;
+			}
+		}
+		return g;
+	}
+
+	@Override
+	public boolean nextDirection(final GAP g, final FastRandom random) {
+		int lastChange = lastChange(g);
+		boolean leftClean = g.getFailure(true) >= lastChange;
+		boolean rightClean = g.getFailure(false) >= lastChange;
+		if (leftClean != rightClean) {
+			return rightClean;
+		}
+		return random.nextBoolean();
+	}
+
+	@Override
+	public void failed(final GAP g, final boolean left, final boolean split) {
+		// The split point is random, so a failed split says nothing about
+		// the other movements
+		if (!split) {
+			g.setFailure(left, this.changes);
+		}
+	}
+
+	@Override
+	public void changed(final int firstColumn, final int lastColumn) {
+		this.changes++;
+		int first = Math.max(firstColumn, 0);
+		int last = Math.min(lastColumn, this.lastChanges.length - 1);
+		for (int column = first; column <= last; column++) {
+			this.lastChanges[column] = this.changes;
+		}
+	}
+
+	// PRIVATE METHODS
+	/**
+	 * The last change of the columns read by the movements of the GAP
+	 * 
+	 * @param g
+	 * @return
+	 */
+	private int lastChange(final GAP g) {
+		int first = Math.max(g.getBegin() - this.gamma - 1, 0);
+		int last = Math.min(g.getEnd() + this.gamma + 1, this.lastChanges.length - 1);
+		int lastChange = 0;
+		for (int column = first; column <= last; column++) {
+			if (this.lastChanges[column] > lastChange) {
+				lastChange = this.lastChanges[column];
+			}
+		}
+		return lastChange;
+	}
+}
@@ -17,43 +17,136 @@ package com.salsaw.msalsa.algorithm;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Locale;
-import java.util.Scanner;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 import com.salsaw.msalsa.algorithm.enums.MatrixSerie;
 import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
 
 /**
+ * Distance matrix written by Clustal: the number of sequences, followed by a
+ * row for each sequence with its name and its distances from all the
+ * sequences.
+ * <p>
+ * The file is read in blocks of bytes and split in tokens without creating
+ * a String for every value. The average identity of the pairs of sequences
+ * is calculated while reading, so the matrix is not kept in memory: the
+ * distances above the diagonal are stored (as floats) only if requested.
+ * </p>
+ * 
  * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
  *
  */
 public final class DistanceMatrix {
+	// CONSTANTS
+	private static final int BUFFER_SIZE = 64 * 1024;
 
+	// FIELDS
 	private final int numberOfSequences;
-	private final double[] distMatrix;
 	private final String[] names;
+	/**
+	 * Sum of the identities (1 - distance) of the pairs above the diagonal
+	 */
+	private final double identitySum;
+	/**
+	 * The distances above the diagonal stored by rows, null if they have not
+	 * been requested
+	 */
+	private final float[] distances;
+
+	// CONSTRUCTOR
+	public DistanceMatrix(final InputStream distanceMatrixStream) throws IOException, SALSAException {
+		this(distanceMatrixStream, false);
+	}
+
+	/**
+	 * @param distanceMatrixStream
+	 * @param storeDistances
+	 *            TRUE to keep the distances, that could be read by
+	 *            {@link #getDistance(int, int)}
+	 * @throws IOException
+	 * @throws SALSAException
+	 */
+	public DistanceMatrix(final InputStream distanceMatrixStream, final boolean storeDistances)
+			throws IOException, SALSAException {
+		Tokenizer tokenizer = new Tokenizer(distanceMatrixStream);
 
-	public DistanceMatrix(final InputStream distanceMatrixStream) {
-		try (Scanner scanner = new Scanner(distanceMatrixStream)) {
-			// First line contains the number of sequences
-			this.numberOfSequences = scanner.nextInt();
-			this.distMatrix = new double[numberOfSequences * numberOfSequences];
-			this.names = new String[numberOfSequences];
-
-			// Read the values for the matrix value (the matrix is numberOfSequences x numberOfSequences)
-			// Set US culture
-			scanner.useLocale(Locale.US);
-			for (int i = 0; i < this.numberOfSequences; i++) {
-				// Read name
-				names[i] = scanner.next();
-				for (int j = 0; j < this.numberOfSequences; j++) {
-					// Read value of distance matrix
-					distMatrix[i * numberOfSequences + j] = scanner.nextFloat();
+		// First line contains the number of sequences
+		this.numberOfSequences = tokenizer.nextInt();
+		if (this.numberOfSequences < 1) {
+			throw new SALSAException("Error: invalid number of sequences in the distance matrix");
+		}
+		long numberOfPairs = (long) this.numberOfSequences * (this.numberOfSequences - 1) / 2;
+		if (storeDistances && numberOfPairs > Integer.MAX_VALUE - 8) {
+			throw new SALSAException("Error: the distance matrix is too big to be stored");
+		}
+		this.names = new String[this.numberOfSequences];
+		this.distances = storeDistances ? new float[(int) numberOfPairs] : null;
+
+		// Read name and distances of each sequence (the matrix is
+		// numberOfSequences x numberOfSequences)
+		double identitySum = 0;
+		int pair = 0;
+		double distance;
+		for (int i = 0; i < this.numberOfSequences; i++) {
+			this.names[i] = tokenizer.nextString();
+			for (int j = 0; j < this.numberOfSequences; j++) {
+				distance = tokenizer.nextDouble();
+				if (j > i) {
+					identitySum += 1.0f - distance;
+					if (storeDistances) {
+						this.distances[pair++] = (float) distance;
+					}
 				}
 			}
 		}
+		this.identitySum = identitySum;
+	}
+
+	// GET / SET
+	public final int getNumberOfSequences() {
+		return this.numberOfSequences;
+	}
+
+	public final String[] getNames() {
+		return this.names;
+	}
+
+	/**
+	 * Average identity (1 - distance) of all the pairs of sequences
+	 * 
+	 * @return
+	 */
+	public final double getAverageIdentity() {
+		if (this.numberOfSequences < 2) {
+			return 0;
+		}
+		return this.identitySum / ((long) this.numberOfSequences * (this.numberOfSequences - 1) / 2);
+	}
+
+	/**
+	 * The distance between two sequences. It requires that the distances
+	 * have been stored.
+	 * 
+	 * @param firstRow
+	 * @param secondRow
+	 * @return
+	 */
+	public final double getDistance(final int firstRow, final int secondRow) {
+		if (this.distances == null) {
+			throw new IllegalStateException("The distances have not been stored");
+		}
+		if (firstRow == secondRow) {
+			return 0;
+		}
+		int i = Math.min(firstRow, secondRow);
+		int j = Math.max(firstRow, secondRow);
+		// Pairs of the rows before i, then the ones of row i before j
+		long rowStart = (long) i * (2 * this.numberOfSequences - i - 1) / 2;
+		return this.distances[(int) (rowStart + j - i - 1)];
 	}
 
+	// METHODS
 	/**
 	 * It calculates the average percentage of identity of the sequences and based on that it choose the correct substitution matrix
 	 * 
@@ -65,15 +158,150 @@ public final class DistanceMatrix {
 	 */
 	public final SubstitutionMatrix createSubstitutionMatrix(final MatrixSerie matrixSerie, double GEP)
 			throws SALSAException, IOException {
-		double pid = 0.0f;
+		return SubstitutionMatrix.getSubstitutionMatrix(
+				SubstitutionMatrix.getEmbeddedSubstitutionMatrix(matrixSerie, getAverageIdentity()), GEP);
+	}
 
-		for (int i = 0; i < this.numberOfSequences; i++) {
-			for (int j = i + 1; j < this.numberOfSequences; j++) {
-				pid += 1.0f - this.distMatrix[i * this.numberOfSequences + j];
+	// PRIVATE CLASSES
+	/**
+	 * Split a stream in tokens separated by spaces (any byte up to ' ') and
+	 * convert them. The decimal values with at most MAX_EXACT_DIGITS digits
+	 * (all the ones written by Clustal) are converted directly; the others
+	 * are converted by Double.parseDouble.
+	 */
+	private static final class Tokenizer {
+		/**
+		 * Below 2^53 every integer is a double, and a division by an exact
+		 * power of ten is correctly rounded as the parsing
+		 */
+		private static final int MAX_EXACT_DIGITS = 15;
+		private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+				1e12, 1e13, 1e14, 1e15 };
+
+		private final InputStream stream;
+		private final byte[] buffer = new byte[BUFFER_SIZE];
+		private int position;
+		private int limit;
+		private byte[] token = new byte[64];
+		private int tokenLength;
+
+		Tokenizer(final InputStream stream) {
+			this.stream = stream;
+		}
+
+		String nextString() throws IOException, SALSAException {
+			next();
+			return new String(this.token, 0, this.tokenLength, StandardCharsets.US_ASCII);
+		}
+
+		int nextInt() throws IOException, SALSAException {
+			next();
+			int value = 0;
+			for (int i = 0; i < this.tokenLength; i++) {
+				byte b = this.token[i];
+				if (b < '0' || b > '9' || i >= 9) {
+					throw invalidToken();
+				}
+				value = value * 10 + (b - '0');
 			}
+			return value;
 		}
 
-		pid /= this.numberOfSequences * (this.numberOfSequences - 1) / 2;
-		return SubstitutionMatrix.getSubstitutionMatrix(SubstitutionMatrix.getEmbeddedSubstitutionMatrix(matrixSerie, pid), GEP);
+		double nextDouble() throws IOException, SALSAException {
+			next();
+			int i = 0;
+			boolean negative = false;
+			if (this.token[0] == '-' || this.token[0] == '+') {
+				negative = this.token[0] == '-';
+				i++;
+			}
+
+			long mantissa = 0;
+			int digits = 0;
+			int decimals = -1;
+			for (; i < this.tokenLength; i++) {
+				byte b = this.token[i];
+				if (b >= '0' && b <= '9' && digits < MAX_EXACT_DIGITS) {
+					mantissa = mantissa * 10 + (b - '0');
+					digits++;
+					if (decimals >= 0) {
+						decimals++;
+					}
+				} else if (b == '.' && decimals < 0) {
+					decimals = 0;
+				} else {
+					// Exponent, too many digits or invalid value
+					return parseDouble();
+				}
+			}
+			if (digits == 0) {
+				return parseDouble();
+			}
+
+			double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+			return negative ? -value : value;
+		}
+
+		private double parseDouble() throws SALSAException {
+			try {
+				return Double.parseDouble(new String(this.token, 0, this.tokenLength, StandardCharsets.US_ASCII));
+			} catch (NumberFormatException e) {
+				throw invalidToken();
+			}
+		}
+
+		private SALSAException invalidToken() {
+			return new SALSAException("Error: invalid value '"
+					+ new String(this.token, 0, this.tokenLength, StandardCharsets.US_ASCII)
+					+ "' in the distance matrix");
+		}
+
+		/**
+		 * Copy the next token inside token
+		 * 
+		 * @throws IOException
+		 * @throws SALSAException
+		 */
+		private void next() throws IOException, SALSAException {
+			// Skip the spaces
+			while (true) {
+				if (this.position == this.limit && !fill()) {
+					throw new SALSAException("Error: the distance matrix is incomplete");
+				}
+				if (this.buffer[this.position] < 0 || this.buffer[this.position] > ' ') {
+					break;
+				}
+				this.position++;
+			}
+
+			this.tokenLength = 0;
+			while (this.position < this.limit || fill()) {
+				byte b = this.buffer[this.position];
+				if (b >= 0 && b <= ' ') {
+					break;
+				}
+				if (this.tokenLength == this.token.length) {
+					this.token = Arrays.copyOf(this.token, 2 * this.token.length);
+				}
+				this.token[this.tokenLength++] = b;
+				this.position++;
+			}
+		}
+
+		/**
+		 * Read the next block of the stream, FALSE if the stream is finished
+		 * 
+		 * @return
+		 * @throws IOException
+		 */
+		private boolean fill() throws IOException {
+			int read = this.stream.read(this.buffer);
+			while (read == 0) {
+				read = this.stream.read(this.buffer);
+			}
+			this.position = 0;
+			this.limit = Math.max(read, 0);
+			return read > 0;
+		}
 	}
 }
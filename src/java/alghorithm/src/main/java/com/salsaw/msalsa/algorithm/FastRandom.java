@@ -0,0 +1,92 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+/**
+ * Pseudo-random generator used by the local search (SplitMix64 algorithm).
+ * <p>
+ * It is faster than java.util.Random, it is not synchronised and its whole
+ * state is a single long: the same seed always generates the same sequence,
+ * and the state could be saved and restored to continue a sequence later.
+ * Instances must not be shared between threads.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class FastRandom {
+	// CONSTANTS
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	// FIELDS
+	private long state;
+
+	// CONSTRUCTOR
+	public FastRandom(final long seed) {
+		this.state = seed;
+	}
+
+	// GET / SET
+	/**
+	 * The current state: a generator with the same state generates the same
+	 * numbers
+	 *
+	 * @return
+	 */
+	public final long getState() {
+		return this.state;
+	}
+
+	public final void setState(final long state) {
+		this.state = state;
+	}
+
+	// METHODS
+	public final long nextLong() {
+		long z = (this.state += GOLDEN_GAMMA);
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * A number in [0, bound). The bias is at most bound / 2^32, negligible
+	 * for the number of GAPs of an alignment.
+	 *
+	 * @param bound
+	 * @return
+	 */
+	public final int nextInt(final int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("bound must be positive");
+		}
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	public final boolean nextBoolean() {
+		return nextLong() < 0;
+	}
+
+	/**
+	 * A number in [0, 1)
+	 *
+	 * @return
+	 */
+	public final double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Read an alignment from a FASTA file.
+ * <p>
+ * Unlike {@link FastaFileReader}, the residues are not stored as a String
+ * for each sequence: the file is read in blocks of bytes and the residues
+ * are written directly into a single array with the sequences one after the
+ * other. All the sequences must have the same length. The residues are not
+ * converted to upper case: the {@link Alphabet} already ignores the case.
+ * Files compressed with gzip are decompressed while reading.
+ * </p>
+ * 
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class FastaAlignmentReader {
+	// CONSTANTS
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final byte HEADER_START = '>';
+	private static final byte COMMENT_START = ';';
+	private static final byte NEW_LINE = '\n';
+
+	// States of the parser
+	private static final int LINE_START = 0;
+	private static final int HEADER = 1;
+	private static final int COMMENT = 2;
+	private static final int SEQUENCE = 3;
+
+	/**
+	 * Largest array that can be allocated
+	 */
+	private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+	/**
+	 * Initial guess of the ratio between the decompressed and the compressed
+	 * size of a file
+	 */
+	private static final int COMPRESSION_RATIO = 4;
+
+	// FIELDS
+	private final ArrayList<String> sequencesHeaders = new ArrayList<>();
+	private byte[] residues;
+	private int numberOfResidues;
+	private int length = -1;
+
+	// CONSTRUCTOR
+	/**
+	 * Read the alignment from the file, decompressing it if it is compressed
+	 * with gzip
+	 * 
+	 * @param filePath
+	 * @throws IOException
+	 * @throws SALSAException
+	 */
+	public FastaAlignmentReader(final String filePath) throws IOException, SALSAException {
+		if (CompressedFiles.isCompressed(filePath)) {
+			try (ReadableByteChannel channel = Channels.newChannel(CompressedFiles.openInput(filePath))) {
+				// The array grows if the guess is wrong
+				this.residues = new byte[(int) Math.min(Files.size(Paths.get(filePath)) * COMPRESSION_RATIO,
+						MAX_ARRAY_SIZE)];
+				read(channel);
+			}
+		} else {
+			try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+				// The size of the file is an upper bound of the number of
+				// residues
+				this.residues = new byte[(int) Math.min(channel.size(), MAX_ARRAY_SIZE)];
+				read(channel);
+			}
+		}
+
+		if (this.sequencesHeaders.isEmpty()) {
+			throw new SALSAException("Error: no sequences found in the file " + filePath);
+		}
+		if (this.residues.length != this.numberOfResidues) {
+			this.residues = Arrays.copyOf(this.residues, this.numberOfResidues);
+		}
+	}
+
+	// GET / SET
+	/**
+	 * The description of the sequences
+	 * 
+	 * @return
+	 */
+	public String[] getSequencesHeaders() {
+		return this.sequencesHeaders.toArray(new String[this.sequencesHeaders.size()]);
+	}
+
+	public int getNumberOfSequences() {
+		return this.sequencesHeaders.size();
+	}
+
+	/**
+	 * The length of every sequence of the alignment
+	 * 
+	 * @return
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * The residues of all the sequences: the residue in position column of
+	 * sequence row is at row * getLength() + column
+	 * 
+	 * @return
+	 */
+	public byte[] getResidues() {
+		return this.residues;
+	}
+
+	// METHODS
+	private void read(final ReadableByteChannel channel) throws IOException, SALSAException {
+		ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		byte[] block = buffer.array();
+		ByteArrayOutputStream header = new ByteArrayOutputStream();
+		int state = LINE_START;
+		int sequenceStart = 0;
+
+		while (channel.read(buffer) != -1) {
+			int end = buffer.position();
+			int i = 0;
+
+			while (i < end) {
+				switch (state) {
+				case LINE_START:
+					byte b = block[i];
+					if (b == HEADER_START) {
+						if (!this.sequencesHeaders.isEmpty()) {
+							sequenceStart = endSequence(sequenceStart);
+						}
+						state = HEADER;
+						i++;
+					} else if (b == COMMENT_START) {
+						state = COMMENT;
+						i++;
+					} else if (b == NEW_LINE || isSpace(b)) {
+						// Empty line or spaces before the content of the line
+						i++;
+					} else {
+						if (this.sequencesHeaders.isEmpty()) {
+							throw new SALSAException("Error: the FASTA file must start with the header of a sequence");
+						}
+						state = SEQUENCE;
+					}
+					break;
+
+				case HEADER:
+					int headerStart = i;
+					while (i < end && block[i] != NEW_LINE) {
+						i++;
+					}
+					header.write(block, headerStart, i - headerStart);
+					if (i < end) {
+						addHeader(header);
+						state = LINE_START;
+						i++;
+					}
+					break;
+
+				case COMMENT:
+					while (i < end && block[i] != NEW_LINE) {
+						i++;
+					}
+					if (i < end) {
+						state = LINE_START;
+						i++;
+					}
+					break;
+
+				default:
+					// Hot path: copy the residues until the end of the line
+					ensureCapacity(this.numberOfResidues + end - i);
+					byte[] residues = this.residues;
+					int numberOfResidues = this.numberOfResidues;
+					while (i < end) {
+						byte residue = block[i++];
+						if (residue == NEW_LINE) {
+							state = LINE_START;
+							break;
+						}
+						if (!isSpace(residue)) {
+							residues[numberOfResidues++] = residue;
+						}
+					}
+					this.numberOfResidues = numberOfResidues;
+					break;
+				}
+			}
+
+			buffer.clear();
+		}
+
+		if (state == HEADER) {
+			// The last line is a header without new line
+			addHeader(header);
+		}
+		if (!this.sequencesHeaders.isEmpty()) {
+			endSequence(sequenceStart);
+		}
+	}
+
+	private void ensureCapacity(final int capacity) throws SALSAException {
+		if (capacity > this.residues.length) {
+			if (capacity > MAX_ARRAY_SIZE) {
+				throw new SALSAException("Error: the alignment is too big");
+			}
+			this.residues = Arrays.copyOf(this.residues,
+					(int) Math.min(Math.max(capacity, 2L * this.residues.length), MAX_ARRAY_SIZE));
+		}
+	}
+
+	/**
+	 * Spaces and control characters (carriage return included) are never
+	 * part of a sequence
+	 * 
+	 * @param b
+	 * @return
+	 */
+	private static boolean isSpace(final byte b) {
+		return b >= 0 && b <= ' ';
+	}
+
+	private void addHeader(final ByteArrayOutputStream header) {
+		this.sequencesHeaders.add(new String(header.toByteArray(), Charset.defaultCharset()).trim());
+		header.reset();
+	}
+
+	/**
+	 * Check the length of the sequence that ends and return the start of the
+	 * next one
+	 * 
+	 * @param sequenceStart
+	 * @return
+	 * @throws SALSAException
+	 */
+	private int endSequence(final int sequenceStart) throws SALSAException {
+		int sequenceLength = this.numberOfResidues - sequenceStart;
+		if (this.length == -1) {
+			this.length = sequenceLength;
+		} else if (sequenceLength != this.length) {
+			throw new SALSAException("Error: the sequence '" + this.sequencesHeaders.get(this.sequencesHeaders.size() - 1)
+					+ "' has length " + sequenceLength + " instead of " + this.length
+					+ ". All the sequences of an alignment must have the same length");
+		}
+		return this.numberOfResidues;
+	}
+}
@@ -16,13 +16,13 @@
 package com.salsaw.msalsa.algorithm;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collection;
 
 /**
- * Read the content of a FASTA file
+ * Read the content of a FASTA file, also compressed with gzip
  * 
  * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
  *
@@ -68,9 +68,9 @@ public class FastaFileReader {
 	 */
 	private void readInputSequences()
 			throws IOException {
-		try (BufferedReader in = new BufferedReader(new FileReader(this.filePath))) {
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(CompressedFiles.openInput(this.filePath)))) {
 			String line;
-			StringBuffer contentBuffer = new StringBuffer();
+			StringBuilder contentBuffer = new StringBuilder();
 
 			// https://github.com/joewandy/BioinfoApp/blob/master/src/com/joewandy/bioinfoapp/model/core/io/FastaReader.java
 			while ((line = in.readLine()) != null) {
@@ -90,13 +90,13 @@ public class FastaFileReader {
 					sequencesHeaders.add(line.substring(1).trim());
 
 					// start a new content buffer
-					contentBuffer = new StringBuffer();
+					contentBuffer.setLength(0);
 
 				} else if (firstChar == ';') {
 					// comment line, skip it
 				} else {
 					// carry on reading sequence content
-					contentBuffer.append(line.trim());
+					contentBuffer.append(line);
 				}
 			}
 
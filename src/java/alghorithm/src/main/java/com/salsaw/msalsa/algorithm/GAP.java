@@ -28,13 +28,23 @@ import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
  */
 public final class GAP {
 	// FIELDS
-	private final int row;
+	private int row;
 	private final int sequencesLength;
 	private int begin;
 	private int end;	
 
 	private GAP previous;
 	private GAP next;
+	/**
+	 * Position of the GAP inside the {@link GAPList} that contains it
+	 */
+	private int slot = -1;
+	/**
+	 * Changes of the alignment seen by the last failed movement to the left
+	 * and to the right (see {@link DirtyColumnsMoveScheduler})
+	 */
+	private int leftFailure = -1;
+	private int rightFailure = -1;
 
 	// CONSTRUCTOR
 	public GAP(final int row, final int begin, final int sequencesLength, final GAP previous, final GAP next)
@@ -78,6 +88,57 @@ public final class GAP {
 		this.next = next;
 	}
 
+	final void setPrevious(final GAP previous) {
+		this.previous = previous;
+	}
+
+	final int getSlot() {
+		return this.slot;
+	}
+
+	final void setSlot(final int slot) {
+		this.slot = slot;
+	}
+
+	final int getFailure(final boolean left) {
+		return left ? this.leftFailure : this.rightFailure;
+	}
+
+	/**
+	 * Forget the failures, which are stamps of the scheduler that stored
+	 * them: for any other scheduler the GAP is not clean
+	 */
+	final void resetFailures() {
+		this.leftFailure = -1;
+		this.rightFailure = -1;
+	}
+
+	final void setFailure(final boolean left, final int changes) {
+		if (left) {
+			this.leftFailure = changes;
+		} else {
+			this.rightFailure = changes;
+		}
+	}
+
+	/**
+	 * The GAP that precedes this one in the same row (null if there is not)
+	 * 
+	 * @return
+	 */
+	final GAP getPrevious() {
+		return this.previous;
+	}
+
+	/**
+	 * The GAP that follows this one in the same row (null if there is not)
+	 * 
+	 * @return
+	 */
+	final GAP getNext() {
+		return this.next;
+	}
+
 	// METHODS
 	/**
 	 * Increase the length of the GAP of one element (if it is possible,
@@ -196,23 +257,45 @@ public final class GAP {
 	 * @throws SALSAException
 	 * */
 	public final GAP split(final int column, final boolean leftNew) throws SALSAException {
+		return split(column, leftNew, null);
+	}
+
+	/**
+	 * Like split(column, leftNew), but the new GAP is taken from the pool
+	 * (if it is not null) instead of being allocated
+	 * 
+	 * @param column
+	 * @param leftNew
+	 * @param pool
+	 * @return
+	 * @throws SALSAException
+	 */
+	final GAP split(final int column, final boolean leftNew, final GAPPool pool) throws SALSAException {
 		if (column < begin || column >= end) {
 			throw new SALSAException(
 					"Error while splitting a GAP: the specified point is not inside the GAP.");
 		}
-		GAP gap;
+		GAP gap = (pool == null) ? new GAP(this.row, this.begin, this.sequencesLength, null, null) : pool.acquire();
+		gap.row = this.row;
+		// A GAP taken from the pool must not inherit the failed movements of
+		// its previous position
+		gap.resetFailures();
 
 		if (leftNew) {
-			gap = new GAP(this.row, this.begin, this.sequencesLength,
-					this.previous, this, column - this.begin + 1);
+			gap.begin = this.begin;
+			gap.end = column;
+			gap.previous = this.previous;
+			gap.next = this;
 			if (this.previous != null) {
 				this.previous.next = gap;
 			}
 			this.previous = gap;
 			this.begin = column + 1;
 		} else {
-			gap = new GAP(this.row, column + 1, this.sequencesLength, this,
-					this.next, this.end - column);
+			gap.begin = column + 1;
+			gap.end = this.end;
+			gap.previous = this;
+			gap.next = this.next;
 			if (this.next != null) {
 				this.next.previous = gap;
 			}
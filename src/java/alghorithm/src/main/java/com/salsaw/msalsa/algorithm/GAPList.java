@@ -0,0 +1,147 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * List of the GAPs of an alignment in which every GAP knows its position, so
+ * that a GAP is found and removed in constant time.
+ * <p>
+ * The order of the GAPs is not preserved: a removed GAP is replaced by the
+ * last one. Because the list is always compact, a GAP chosen with a uniform
+ * random index is a uniform sample of the GAPs. A GAP must not be added to
+ * a list while it is still inside another one.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class GAPList extends AbstractList<GAP> implements RandomAccess {
+	// FIELDS
+	private GAP[] gaps;
+	private int size;
+
+	// CONSTRUCTOR
+	public GAPList() {
+		this(16);
+	}
+
+	public GAPList(final int capacity) {
+		this.gaps = new GAP[Math.max(capacity, 1)];
+	}
+
+	// GET / SET
+	@Override
+	public final GAP get(final int index) {
+		if (index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+		return this.gaps[index];
+	}
+
+	@Override
+	public final int size() {
+		return this.size;
+	}
+
+	// METHODS
+	/**
+	 * A GAP chosen uniformly at random
+	 * 
+	 * @param random
+	 * @return
+	 */
+	public final GAP sample(final FastRandom random) {
+		return this.gaps[random.nextInt(this.size)];
+	}
+
+	@Override
+	public final boolean add(final GAP g) {
+		if (this.size == this.gaps.length) {
+			this.gaps = Arrays.copyOf(this.gaps, this.size * 2);
+		}
+		g.setSlot(this.size);
+		this.gaps[this.size++] = g;
+		this.modCount++;
+		return true;
+	}
+
+	/**
+	 * Remove the GAP in the given position: the last GAP takes its place
+	 */
+	@Override
+	public final GAP remove(final int index) {
+		GAP g = get(index);
+		this.size--;
+		GAP last = this.gaps[this.size];
+		this.gaps[index] = last;
+		last.setSlot(index);
+		this.gaps[this.size] = null;
+		this.modCount++;
+		return g;
+	}
+
+	/**
+	 * Remove the GAP in constant time: the last GAP takes its place
+	 */
+	@Override
+	public final boolean remove(final Object o) {
+		if (!contains(o)) {
+			return false;
+		}
+		remove(((GAP) o).getSlot());
+		return true;
+	}
+
+	@Override
+	public final boolean contains(final Object o) {
+		if (!(o instanceof GAP)) {
+			return false;
+		}
+		int slot = ((GAP) o).getSlot();
+		return slot >= 0 && slot < this.size && this.gaps[slot] == o;
+	}
+
+	@Override
+	public final int indexOf(final Object o) {
+		return contains(o) ? ((GAP) o).getSlot() : -1;
+	}
+
+	@Override
+	public final int lastIndexOf(final Object o) {
+		return indexOf(o);
+	}
+
+	/**
+	 * Remove all the GAPs. Their positions are not reset, so the GAPs could
+	 * already be inside another list.
+	 */
+	@Override
+	public final void clear() {
+		Arrays.fill(this.gaps, 0, this.size, null);
+		this.size = 0;
+		this.modCount++;
+	}
+
+	public final void ensureCapacity(final int capacity) {
+		if (capacity > this.gaps.length) {
+			this.gaps = Arrays.copyOf(this.gaps, capacity);
+		}
+	}
+}
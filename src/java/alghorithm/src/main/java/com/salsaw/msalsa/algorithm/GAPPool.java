@@ -0,0 +1,83 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Free list of the GAPs that are not part of the alignment anymore (unified
+ * with another GAP or created by a split that has been undone), so that the
+ * splits done by the local search reuse them instead of allocating new ones.
+ * <p>
+ * The free GAPs are linked through their next field, so the pool does not
+ * need any storage. A pool must be used by a single thread.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+final class GAPPool {
+	// FIELDS
+	private final int sequencesLength;
+	private GAP firstFree;
+	private int size;
+
+	// CONSTRUCTOR
+	GAPPool(final int sequencesLength) {
+		this.sequencesLength = sequencesLength;
+	}
+
+	// GET / SET
+	/**
+	 * Number of GAPs ready to be reused
+	 * 
+	 * @return
+	 */
+	final int size() {
+		return this.size;
+	}
+
+	// METHODS
+	/**
+	 * A free GAP, or a new one if the pool is empty. Position and links of the
+	 * returned GAP must be set by the caller.
+	 * 
+	 * @return
+	 * @throws SALSAException
+	 */
+	final GAP acquire() throws SALSAException {
+		GAP g = this.firstFree;
+		if (g == null) {
+			return new GAP(0, 0, this.sequencesLength, null, null);
+		}
+		this.firstFree = g.getNext();
+		g.setNext(null);
+		this.size--;
+		return g;
+	}
+
+	/**
+	 * Put back a GAP that is not referenced anymore by the alignment
+	 * 
+	 * @param g
+	 */
+	final void release(final GAP g) {
+		g.setPrevious(null);
+		g.setNext(this.firstFree);
+		this.firstFree = g;
+		this.size++;
+	}
+}
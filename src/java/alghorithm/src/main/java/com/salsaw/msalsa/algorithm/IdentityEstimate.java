@@ -0,0 +1,105 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+
+/**
+ * Average identity score of the pairs of sequences of an alignment,
+ * estimated to choose the substitution matrix of a serie, and the matrix
+ * chosen.
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class IdentityEstimate {
+	// FIELDS
+	private final double identity;
+	private final double lowerBound;
+	private final double upperBound;
+	private final int pairs;
+	private final boolean exact;
+	private final EmbeddedScoringMatrix matrix;
+
+	// CONSTRUCTOR
+	IdentityEstimate(final double identity, final double lowerBound, final double upperBound, final int pairs,
+			final boolean exact, final EmbeddedScoringMatrix matrix) {
+		this.identity = identity;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+		this.pairs = pairs;
+		this.exact = exact;
+		this.matrix = matrix;
+	}
+
+	// GET / SET
+	/**
+	 * The average identity score (exact or estimated)
+	 *
+	 * @return
+	 */
+	public final double getIdentity() {
+		return this.identity;
+	}
+
+	/**
+	 * Bounds of the confidence interval of the estimate (both equal to the
+	 * identity if it is exact)
+	 *
+	 * @return
+	 */
+	public final double getLowerBound() {
+		return this.lowerBound;
+	}
+
+	public final double getUpperBound() {
+		return this.upperBound;
+	}
+
+	/**
+	 * Number of pairs of sequences compared
+	 *
+	 * @return
+	 */
+	public final int getPairs() {
+		return this.pairs;
+	}
+
+	/**
+	 * TRUE if all the pairs of sequences have been compared
+	 *
+	 * @return
+	 */
+	public final boolean isExact() {
+		return this.exact;
+	}
+
+	/**
+	 * The substitution matrix chosen
+	 *
+	 * @return
+	 */
+	public final EmbeddedScoringMatrix getMatrix() {
+		return this.matrix;
+	}
+
+	@Override
+	public String toString() {
+		return "identity: " + this.identity + (this.exact ? " (exact"
+				: " (in [" + this.lowerBound + ", " + this.upperBound + "]") + " on " + this.pairs + " pairs), matrix: "
+				+ this.matrix;
+	}
+}
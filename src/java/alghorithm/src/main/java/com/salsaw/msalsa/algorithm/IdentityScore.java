@@ -0,0 +1,274 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.salsaw.msalsa.algorithm.enums.MatrixSerie;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Average identity score (the fraction of identical residues, see
+ * {@link #identity(int, int)}) of the pairs of sequences of an alignment,
+ * used to choose the substitution matrix of a serie.
+ * <p>
+ * The residues are the ones read from the file, before they are converted
+ * by an {@link Alphabet}: the alphabet depends on the substitution matrix
+ * that has still to be chosen. The case of the residues is ignored.
+ * </p>
+ * <p>
+ * Only the substitution matrix depends on the average, so it is not
+ * calculated exactly: random pairs are compared, a batch at a time, until
+ * the confidence interval of the average does not contain any threshold of
+ * the serie. The number of pairs compared does not grow with the number of
+ * sequences. The pairs of a batch are split among the threads of the common
+ * fork-join pool; the random pairs are always the same, so the result
+ * depends only on the alignment.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+final class IdentityScore {
+	// CONSTANTS
+	/**
+	 * Number of pairs sampled by each batch (the minimum sample, which makes
+	 * the estimate of the variance reliable) and maximum number of pairs
+	 * sampled: when the average is too close to a threshold, the matrix is
+	 * chosen with the average of MAX_PAIRS pairs
+	 */
+	static final int BATCH_PAIRS = 1000;
+	static final int MAX_PAIRS = 100000;
+	/**
+	 * Half-width of the confidence interval in standard errors (99.7%
+	 * confidence for a normal distribution)
+	 */
+	static final double CONFIDENCE_Z = 3.0;
+	/**
+	 * Number of pairs compared by a single task
+	 */
+	private static final int PAIRS_PER_TASK = 128;
+	private static final long SAMPLING_SEED = 0x5A15AL;
+	private static final byte GAP_SYMBOL = (byte) Alphabet.GAP_SYMBOL;
+	private static final int CASE_BIT = 0x20;
+
+	// FIELDS
+	private final byte[] residues;
+	private final int numberOfSequences;
+	private final int length;
+	/**
+	 * Number of residues (INDELs excluded) of each sequence
+	 */
+	private final int[] sequencesLength;
+
+	// CONSTRUCTOR
+	/**
+	 * @param residues
+	 *            the sequences one after the other, as read by
+	 *            {@link FastaAlignmentReader}
+	 * @param numberOfSequences
+	 * @param length
+	 */
+	IdentityScore(final byte[] residues, final int numberOfSequences, final int length) {
+		this.residues = residues;
+		this.numberOfSequences = numberOfSequences;
+		this.length = length;
+		this.sequencesLength = new int[numberOfSequences];
+
+		for (int row = 0; row < numberOfSequences; row++) {
+			int count = 0;
+			for (int column = 0; column < length; column++) {
+				if (residues[row * length + column] != GAP_SYMBOL) {
+					count++;
+				}
+			}
+			this.sequencesLength[row] = count;
+		}
+	}
+
+	// METHODS
+	/**
+	 * Number of identical residues in the same column of the two sequences
+	 * divided by the number of residues of the shorter one (0 if one of them
+	 * contains only INDELs)
+	 * 
+	 * @param firstRow
+	 * @param secondRow
+	 * @return
+	 */
+	final double identity(final int firstRow, final int secondRow) {
+		int shorter = Math.min(this.sequencesLength[firstRow], this.sequencesLength[secondRow]);
+		if (shorter == 0) {
+			return 0;
+		}
+
+		int first = firstRow * this.length;
+		int second = secondRow * this.length;
+		int count = 0;
+		byte residue;
+		for (int column = 0; column < this.length; column++) {
+			residue = this.residues[first + column];
+			if (residue != GAP_SYMBOL && (residue | CASE_BIT) == (this.residues[second + column] | CASE_BIT)) {
+				count++;
+			}
+		}
+
+		return count / (double) shorter;
+	}
+
+	/**
+	 * Estimate the average identity score and choose the substitution matrix
+	 * of the serie. The alignments with at most BATCH_PAIRS pairs are
+	 * compared exactly.
+	 * 
+	 * @param matrixSerie
+	 * @return
+	 * @throws SALSAException
+	 * @throws IOException
+	 */
+	final IdentityEstimate estimate(final MatrixSerie matrixSerie) throws SALSAException, IOException {
+		double[] thresholds = SubstitutionMatrix.getIdentityThresholds(matrixSerie);
+		long numberOfPairs = (long) this.numberOfSequences * (this.numberOfSequences - 1) / 2;
+		if (numberOfPairs <= BATCH_PAIRS) {
+			return exactEstimate(matrixSerie, (int) numberOfPairs);
+		}
+
+		FastRandom random = new FastRandom(SAMPLING_SEED);
+		int[] firstRows = new int[BATCH_PAIRS];
+		int[] secondRows = new int[BATCH_PAIRS];
+		double sum = 0;
+		double squaresSum = 0;
+		int pairs = 0;
+		double average, halfWidth;
+		do {
+			for (int pair = 0; pair < BATCH_PAIRS; pair++) {
+				int i = random.nextInt(this.numberOfSequences);
+				int j = random.nextInt(this.numberOfSequences - 1);
+				firstRows[pair] = i;
+				secondRows[pair] = j < i ? j : j + 1;
+			}
+			double[] sums = sum(firstRows, secondRows, 0, BATCH_PAIRS);
+			sum += sums[0];
+			squaresSum += sums[1];
+			pairs += BATCH_PAIRS;
+
+			average = sum / pairs;
+			double variance = Math.max(0, squaresSum - pairs * average * average) / (pairs - 1);
+			halfWidth = CONFIDENCE_Z * Math.sqrt(variance / pairs);
+		} while (pairs < MAX_PAIRS && containsThreshold(average - halfWidth, average + halfWidth, thresholds));
+
+		return new IdentityEstimate(average, average - halfWidth, average + halfWidth, pairs, false,
+				SubstitutionMatrix.getEmbeddedSubstitutionMatrix(matrixSerie, average));
+	}
+
+	/**
+	 * Sum of the identity scores of the pairs in positions [begin, end) of
+	 * the two arrays and sum of their squares, calculated in parallel. The
+	 * pairs are always split in the same way, so the result does not depend
+	 * on the threads.
+	 * 
+	 * @param firstRows
+	 * @param secondRows
+	 * @param begin
+	 * @param end
+	 * @return
+	 */
+	final double[] sum(final int[] firstRows, final int[] secondRows, final int begin, final int end) {
+		return ForkJoinPool.commonPool().invoke(new SumTask(firstRows, secondRows, begin, end));
+	}
+
+	// PRIVATE METHODS
+	private IdentityEstimate exactEstimate(final MatrixSerie matrixSerie, final int numberOfPairs)
+			throws SALSAException, IOException {
+		int[] firstRows = new int[numberOfPairs];
+		int[] secondRows = new int[numberOfPairs];
+		int pair = 0;
+		for (int i = 0; i < this.numberOfSequences - 1; i++) {
+			for (int j = i + 1; j < this.numberOfSequences; j++) {
+				firstRows[pair] = i;
+				secondRows[pair] = j;
+				pair++;
+			}
+		}
+
+		double average = numberOfPairs == 0 ? 0 : sum(firstRows, secondRows, 0, numberOfPairs)[0] / numberOfPairs;
+		return new IdentityEstimate(average, average, average, numberOfPairs, true,
+				SubstitutionMatrix.getEmbeddedSubstitutionMatrix(matrixSerie, average));
+	}
+
+	/**
+	 * TRUE if a threshold is inside [lowerBound, upperBound]: the matrix
+	 * chosen by the true average could be different from the one chosen by
+	 * the estimate
+	 * 
+	 * @param lowerBound
+	 * @param upperBound
+	 * @param thresholds
+	 * @return
+	 */
+	private static boolean containsThreshold(final double lowerBound, final double upperBound,
+			final double[] thresholds) {
+		for (double threshold : thresholds) {
+			if (lowerBound <= threshold && threshold <= upperBound) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// PRIVATE CLASSES
+	private final class SumTask extends RecursiveTask<double[]> {
+		private static final long serialVersionUID = 1L;
+
+		private final int[] firstRows;
+		private final int[] secondRows;
+		private final int begin;
+		private final int end;
+
+		SumTask(final int[] firstRows, final int[] secondRows, final int begin, final int end) {
+			this.firstRows = firstRows;
+			this.secondRows = secondRows;
+			this.begin = begin;
+			this.end = end;
+		}
+
+		@Override
+		protected double[] compute() {
+			if (this.end - this.begin <= PAIRS_PER_TASK) {
+				double sum = 0;
+				double squaresSum = 0;
+				double identity;
+				for (int pair = this.begin; pair < this.end; pair++) {
+					identity = identity(this.firstRows[pair], this.secondRows[pair]);
+					sum += identity;
+					squaresSum += identity * identity;
+				}
+				return new double[] { sum, squaresSum };
+			}
+
+			int middle = (this.begin + this.end) >>> 1;
+			SumTask left = new SumTask(this.firstRows, this.secondRows, this.begin, middle);
+			left.fork();
+			double[] right = new SumTask(this.firstRows, this.secondRows, middle, this.end).compute();
+			double[] sums = left.join();
+			sums[0] += right[0];
+			sums[1] += right[1];
+			return sums;
+		}
+	}
+}
@@ -15,9 +15,10 @@
  */
 package com.salsaw.msalsa.algorithm;
 
-import java.util.ArrayList;
-import java.util.Random;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
+import com.salsaw.msalsa.algorithm.enums.MoveSelection;
 import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
 import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
 
@@ -28,28 +29,216 @@ import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
  *
  */
 public final class LocalSearch {
+	/**
+	 * Number of iterations between two checks of the time limit: reading the
+	 * clock at every iteration would be expensive compared to a movement
+	 */
+	static final int TIME_CHECK_INTERVAL = 256;
+
+	/**
+	 * Number of worsening movements used to calibrate the initial temperature
+	 * of the simulated annealing, probability of accepting an average one at
+	 * the initial temperature and ratio between the final temperature and the
+	 * initial one
+	 */
+	static final int CALIBRATION_MOVES = 1000;
+	static final double INITIAL_ACCEPTANCE = 0.02;
+	static final double FINAL_TEMPERATURE_RATIO = 0.001;
+
 	// FILEDS
 	private final Alignment align;
-	private final ArrayList<GAP> GAPS;
-	private int numberOfGAPS;
+	private final GAPList GAPS;
 	private final int gamma;
 	private final int minIterations;
 	private final double probabiltyOfSplit;
-        private final Random randomGenerator;
+        private final FastRandom randomGenerator;
+	/**
+	 * GAPs removed from the alignment, reused by the next splits
+	 */
+	private final GAPPool pool;
+	private MoveSelection moveSelection;
+	private MoveScheduler scheduler;
+	/**
+	 * Probability that an iteration moves together all the GAPs aligned with
+	 * the chosen one (see {@link #moveBlock(int, boolean)}) and the buffer
+	 * containing them
+	 */
+	private double probabilityOfBlockMove;
+	private GAP[] block;
+	/**
+	 * For each row, a GAP of the search inside it (null if the row has none),
+	 * used as the starting point to find the GAPs of a block. It is created
+	 * by the first block and thrown away when it can not be kept updated.
+	 */
+	private GAP[] rowGAPs;
 
 	private final TerminalGAPsStrategy terminal;
 
+	/**
+	 * Columns range (inclusive) inside which the GAPs are allowed to move. It
+	 * is the whole alignment, unless the search works only on a stripe of
+	 * columns (see {@link StripedLocalSearch}).
+	 */
+	private int firstColumn;
+	private int lastColumn;
+
+	/**
+	 * Number of iterations done and last iteration that improved the
+	 * alignment. They start from zero, unless the search is resumed from a
+	 * {@link LocalSearchState}.
+	 */
+	private int iterations;
+	private int lastImprovement;
+
+	/**
+	 * WSP-Score of the alignment when the execution started and sum of the
+	 * improvements of all the accepted movements. Their sum is the current
+	 * WSP-Score, so it is not necessary to calculate it again.
+	 */
+	private double initialScore;
+	private double improvement;
+	/**
+	 * Improvement when the current window of the improvement rate criterion
+	 * started
+	 */
+	private double windowImprovement;
+	/**
+	 * Exact change of the WSP-Score due to the last movement
+	 */
+	private double lastChange;
+
+	private int acceptedMoves;
+	private int splits;
+	private int unifications;
+	private int blockMoves;
+
+	/**
+	 * Number of iterations of the simulated annealing (0 if it is disabled),
+	 * its initial temperature (0 until it is calibrated) and the current one
+	 */
+	private int annealingIterations;
+	private double initialTemperature;
+	private double temperature;
+	private double calibrationSum;
+	private int calibrationMoves;
+	/**
+	 * Best improvement reached. When the current alignment is worse, a copy
+	 * of the best matrix is stored inside bestMatrix.
+	 */
+	private double bestImprovement;
+	private byte[] bestMatrix;
+	private boolean bestSaved;
+
+	private LocalSearchListener listener;
+	private int progressInterval;
+
+	/**
+	 * Maximum duration of the execution in milliseconds, 0 if there is no
+	 * limit
+	 */
+	private long timeLimit;
+	/**
+	 * Minimum average improvement of the WSP-Score per iteration, measured
+	 * on windows of minIterations iterations. 0 disables the criterion.
+	 */
+	private double minImprovementRate;
+	private boolean timeLimitReached;
+
+	/**
+	 * File where the alignment and the state of the search are periodically
+	 * saved (see {@link AlignmentSnapshot}), null if there are no checkpoints
+	 */
+	private String checkpointFilePath;
+	/**
+	 * Milliseconds between two checkpoints
+	 */
+	private long checkpointInterval;
+
 	// CONSTRUCTOR
 	public LocalSearch(final Alignment alignment, final int gamma, final int minIterations,
 			final double probabiltyOfSplit) {
+		this(alignment, gamma, minIterations, probabiltyOfSplit, System.currentTimeMillis());
+	}
+
+	/**
+	 * Create a local search that initialize the random generator with the
+	 * specified seed. The same alignment and the same seed always produce
+	 * the same result in the same number of iterations.
+	 * 
+	 * @param alignment
+	 * @param gamma
+	 * @param minIterations
+	 * @param probabiltyOfSplit
+	 * @param seed
+	 */
+	public LocalSearch(final Alignment alignment, final int gamma, final int minIterations,
+			final double probabiltyOfSplit, final long seed) {
+		this(alignment, alignment.getGAPS(), gamma, minIterations, probabiltyOfSplit, seed, 0,
+				alignment.getLength() - 1);
+	}
+
+	/**
+	 * Create a local search that continues the one that produced the given
+	 * state. The alignment must be the one of the same moment (for example
+	 * both of them reloaded from an {@link AlignmentSnapshot}): the result is
+	 * the same of a search never interrupted.
+	 * 
+	 * @param alignment
+	 * @param gamma
+	 * @param minIterations
+	 * @param probabiltyOfSplit
+	 * @param state
+	 */
+	public LocalSearch(final Alignment alignment, final int gamma, final int minIterations,
+			final double probabiltyOfSplit, final LocalSearchState state) {
+		this(alignment, gamma, minIterations, probabiltyOfSplit, state.getRandomState());
+		this.iterations = state.getIterations();
+		this.lastImprovement = state.getLastImprovement();
+		this.improvement = state.getImprovement();
+		this.windowImprovement = state.getWindowImprovement();
+		this.acceptedMoves = state.getAcceptedMoves();
+		this.splits = state.getSplits();
+		this.unifications = state.getUnifications();
+		this.blockMoves = state.getBlockMoves();
+		this.initialTemperature = state.getInitialTemperature();
+		this.temperature = state.getTemperature();
+		this.calibrationSum = state.getCalibrationSum();
+		this.calibrationMoves = state.getCalibrationMoves();
+		this.bestImprovement = state.getBestImprovement();
+		this.bestMatrix = state.getBestMatrix();
+		this.bestSaved = this.bestMatrix != null;
+	}
+
+	/**
+	 * Create a local search that moves only the GAPs of the given list and
+	 * only inside the columns range [firstColumn, lastColumn]. A GAP is never
+	 * moved next to a GAP that is outside the range: the two GAPs would be
+	 * unified and the one outside the range could be owned by another search.
+	 * 
+	 * @param alignment
+	 * @param gaps
+	 * @param gamma
+	 * @param minIterations
+	 * @param probabiltyOfSplit
+	 * @param seed
+	 * @param firstColumn
+	 * @param lastColumn
+	 */
+	LocalSearch(final Alignment alignment, final GAPList gaps, final int gamma,
+			final int minIterations, final double probabiltyOfSplit, final long seed, final int firstColumn,
+			final int lastColumn) {
 		this.align = alignment;
 		this.gamma = gamma;
 		this.minIterations = minIterations;
 		this.probabiltyOfSplit = probabiltyOfSplit;
-		this.GAPS = alignment.getGAPS();
-		this.numberOfGAPS = GAPS.size();
+		this.GAPS = gaps;
+		this.pool = new GAPPool(align.getLength());
+		this.moveSelection = MoveSelection.UNIFORM;
+		this.scheduler = new UniformMoveScheduler();
 		this.terminal = align.getTerminalGAPStrategy();
-                this.randomGenerator = new Random();
+                this.randomGenerator = new FastRandom(seed);
+		this.firstColumn = firstColumn;
+		this.lastColumn = lastColumn;
 	}
 
 	// GET / SET
@@ -57,76 +246,428 @@ public final class LocalSearch {
 		return this.gamma;
 	}
 
+	/**
+	 * Number of iterations done by the last execution (and by the search it
+	 * resumed, if any)
+	 * 
+	 * @return
+	 */
+	public final int getIterations() {
+		return this.iterations;
+	}
+
+	/**
+	 * The state needed to resume the search later. During the execution it
+	 * could be read only by the listener, together with the alignment.
+	 * 
+	 * @return
+	 */
+	public final LocalSearchState getState() {
+		return new LocalSearchState(this.randomGenerator.getState(), this.iterations, this.lastImprovement,
+				this.initialScore, this.improvement, this.windowImprovement, this.acceptedMoves, this.splits,
+				this.unifications, this.blockMoves, this.initialTemperature, this.temperature, this.calibrationSum,
+				this.calibrationMoves, this.bestImprovement, this.bestSaved ? this.bestMatrix.clone() : null);
+	}
+
+	/**
+	 * The WSP-Score of the alignment, kept updated during the execution
+	 * 
+	 * @return
+	 */
+	public final double getScore() {
+		return this.initialScore + this.improvement;
+	}
+
+	/**
+	 * Sum of the improvements of all the accepted movements
+	 * 
+	 * @return
+	 */
+	final double getImprovement() {
+		return this.improvement;
+	}
+
+	final int getAcceptedMoves() {
+		return this.acceptedMoves;
+	}
+
+	final int getSplits() {
+		return this.splits;
+	}
+
+	final int getUnifications() {
+		return this.unifications;
+	}
+
+	/**
+	 * Number of accepted movements of a block of GAPs (they are counted also
+	 * by getAcceptedMoves())
+	 * 
+	 * @return
+	 */
+	final int getBlockMoves() {
+		return this.blockMoves;
+	}
+
+	/**
+	 * The listener is notified every progressInterval iterations and at the
+	 * end of the execution
+	 * 
+	 * @param listener
+	 * @param progressInterval
+	 */
+	public final void setListener(final LocalSearchListener listener, final int progressInterval) {
+		if (progressInterval < 1) {
+			throw new IllegalArgumentException("progressInterval");
+		}
+		this.listener = listener;
+		this.progressInterval = progressInterval;
+	}
+
+	/**
+	 * Stop the execution after the given time, even if the search is still
+	 * improving the alignment. 0 means no limit.
+	 * 
+	 * @param timeLimit
+	 *            milliseconds
+	 */
+	public final void setTimeLimit(final long timeLimit) {
+		if (timeLimit < 0) {
+			throw new IllegalArgumentException("timeLimit");
+		}
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Stop the execution when the WSP-Score improves less than
+	 * minImprovementRate per iteration, on average, during minIterations
+	 * iterations. 0 means that the search continues until minIterations
+	 * iterations without improvements.
+	 * 
+	 * @param minImprovementRate
+	 */
+	public final void setMinImprovementRate(final double minImprovementRate) {
+		if (minImprovementRate < 0) {
+			throw new IllegalArgumentException("minImprovementRate");
+		}
+		this.minImprovementRate = minImprovementRate;
+	}
+
+	public final int getAnnealingIterations() {
+		return this.annealingIterations;
+	}
+
+	/**
+	 * Use the simulated annealing for the first annealingIterations
+	 * iterations: the best position found by a movement without split is
+	 * accepted also if it worsens the WSP-Score, with probability
+	 * exp(change / temperature). The temperature is calibrated on the first
+	 * worsening movements and then it decreases geometrically until the end
+	 * of the annealing, when the search goes back to the best alignment found
+	 * and continues accepting only the improvements. 0 disables the
+	 * annealing.
+	 * <p>
+	 * The annealing cannot be used on a stripe of the alignment. Its state
+	 * and the best alignment found are saved by the checkpoints.
+	 * </p>
+	 * 
+	 * @param annealingIterations
+	 */
+	public final void setAnnealing(final int annealingIterations) {
+		if (annealingIterations < 0) {
+			throw new IllegalArgumentException("annealingIterations");
+		}
+		if (annealingIterations > 0 && this.GAPS != this.align.getGAPS()) {
+			throw new IllegalStateException("The annealing cannot be used on a stripe of the alignment");
+		}
+		this.annealingIterations = annealingIterations;
+	}
+
+	public final double getBlockMoveProbability() {
+		return this.probabilityOfBlockMove;
+	}
+
+	/**
+	 * Probability that an iteration moves, instead of the chosen GAP alone,
+	 * the block of all the GAPs with its same begin and end: a column of GAPs
+	 * misplaced in many rows is moved in a single step, also when moving its
+	 * GAPs one at a time would pass through worse alignments. Only the blocks
+	 * of at least two GAPs that are not terminal are moved, and only until
+	 * one of them would touch another GAP. 0 disables the block movements.
+	 * 
+	 * @param probabilityOfBlockMove
+	 */
+	public final void setBlockMoveProbability(final double probabilityOfBlockMove) {
+		if (probabilityOfBlockMove < 0 || probabilityOfBlockMove > 1) {
+			throw new IllegalArgumentException("probabilityOfBlockMove");
+		}
+		if (probabilityOfBlockMove > 0 && this.block == null) {
+			this.block = new GAP[this.align.getNumberOfSequences()];
+		}
+		this.probabilityOfBlockMove = probabilityOfBlockMove;
+	}
+
+	public final MoveSelection getMoveSelection() {
+		return this.moveSelection;
+	}
+
+	/**
+	 * The way used to choose the GAP to move and the direction of each
+	 * movement. The history of the previous movements is lost (also the
+	 * failures stored inside the GAPs), and it is not saved by the
+	 * checkpoints.
+	 * 
+	 * @param moveSelection
+	 */
+	public final void setMoveSelection(final MoveSelection moveSelection) {
+		for (int i = 0; i < this.GAPS.size(); i++) {
+			this.GAPS.get(i).resetFailures();
+		}
+		switch (moveSelection) {
+		case UNIFORM:
+			this.scheduler = new UniformMoveScheduler();
+			break;
+		case DIRTY_COLUMNS:
+			this.scheduler = new DirtyColumnsMoveScheduler(this.align.getLength(), this.gamma);
+			break;
+		default:
+			throw new IllegalArgumentException("moveSelection");
+		}
+		this.moveSelection = moveSelection;
+	}
+
+	/**
+	 * Save a checkpoint of the search every checkpointInterval milliseconds:
+	 * the search could be resumed from the last checkpoint with
+	 * {@link AlignmentSnapshot#load(String)} and
+	 * {@link #LocalSearch(Alignment, int, int, double, LocalSearchState)}.
+	 * 
+	 * @param checkpointFilePath
+	 *            null to disable the checkpoints
+	 * @param checkpointInterval
+	 *            milliseconds
+	 */
+	public final void setCheckpoint(final String checkpointFilePath, final long checkpointInterval) {
+		if (checkpointInterval < 1) {
+			throw new IllegalArgumentException("checkpointInterval");
+		}
+		this.checkpointFilePath = checkpointFilePath;
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	/**
+	 * TRUE if the last execution has been stopped by the time limit
+	 * 
+	 * @return
+	 */
+	public final boolean isTimeLimitReached() {
+		return this.timeLimitReached;
+	}
+
 	// PUBLIC METHODS
+	/**
+	 * Execute the search. The search ends after minIterations iterations
+	 * without improvements, when the improvement rate falls below
+	 * minImprovementRate or when the time limit is reached. The first two
+	 * criteria are not checked during the simulated annealing.
+	 * <p>
+	 * The returned alignment is always the best one found, also when the
+	 * search is stopped by the time limit.
+	 * </p>
+	 * 
+	 * @return
+	 * @throws SALSAException
+	 */
 	public final Alignment execute() throws SALSAException {
-		int lastImprovement = 0;
-		int iteration = 0;
-		int positionOfGAP;
-		boolean left;
-		double split;
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeLimit);
+		long nextCheckpoint = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.checkpointInterval);
+		boolean readClock = this.timeLimit > 0 || this.checkpointFilePath != null;
+		// A resumed search already contains the improvements done before
+		this.initialScore = this.align.WSP() - this.improvement;
+		this.timeLimitReached = false;
+		// A resumed search continues also the annealing and the best
+		// alignment found
+		if (this.bestImprovement < this.improvement) {
+			this.bestImprovement = this.improvement;
+			this.bestSaved = false;
+		}
 
-		// Initialize seed
-		Random random = new Random(System.currentTimeMillis());
+		while (this.iterations < this.annealingIterations
+				|| this.lastImprovement + minIterations > this.iterations) {
+			if (iterate()) {
+				// During the annealing only a new best alignment is an
+				// improvement
+				if (!annealing() || this.improvement > this.bestImprovement) {
+					this.lastImprovement = this.iterations;
+				}
+			}
+			if (this.improvement > this.bestImprovement) {
+				this.bestImprovement = this.improvement;
+				this.bestSaved = false;
+			}
 
-		while (lastImprovement + minIterations > iteration) {
+			this.iterations++;
+
+			if (this.annealingIterations > 0) {
+				if (this.iterations == this.annealingIterations) {
+					// Continue from the best alignment, accepting only the
+					// improvements
+					restoreBest();
+					this.temperature = 0;
+					this.lastImprovement = this.iterations;
+					this.windowImprovement = this.improvement;
+				} else if (annealing() && this.initialTemperature > 0
+						&& this.iterations % TIME_CHECK_INTERVAL == 0) {
+					this.temperature = this.initialTemperature * Math.pow(FINAL_TEMPERATURE_RATIO,
+							(double) this.iterations / this.annealingIterations);
+				}
+			}
 
-			positionOfGAP = random.nextInt(this.numberOfGAPS);
-			left = random.nextBoolean();
-			split = random.nextFloat();
+			if (readClock && this.iterations % TIME_CHECK_INTERVAL == 0) {
+				long now = System.nanoTime();
+				if (this.timeLimit > 0 && now - deadline >= 0) {
+					this.timeLimitReached = true;
+					break;
+				}
+				if (this.checkpointFilePath != null && now - nextCheckpoint >= 0) {
+					saveCheckpoint();
+					nextCheckpoint = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.checkpointInterval);
+				}
+			}
 
-			if (split < this.probabiltyOfSplit) {
-				if (splitAndMove(positionOfGAP, left)) {
-					lastImprovement = iteration;
+			if (this.minImprovementRate > 0 && minIterations > 0 && !annealing()
+					&& this.iterations % minIterations == 0) {
+				if (this.improvement - this.windowImprovement < this.minImprovementRate * minIterations) {
+					break;
 				}
-			} else if (move(positionOfGAP, left)) {
-				lastImprovement = iteration;
+				this.windowImprovement = this.improvement;
 			}
 
-			iteration++;
+			if (this.listener != null && this.iterations % this.progressInterval == 0) {
+				this.listener.progress(getProgress(this.iterations, false));
+			}
+		}
+
+		// Stopped by the time limit during the annealing
+		restoreBest();
+
+		if (this.listener != null) {
+			this.listener.progress(getProgress(this.iterations, true));
 		}
 
 		return align;
 	}
 
+	/**
+	 * Prepare the search of a stripe for a new epoch of a
+	 * {@link StripedLocalSearch}: the GAPs of its list could have been
+	 * changed, they are moved only inside the new columns range and the
+	 * counters of the movements start again from zero.
+	 * 
+	 * @param firstColumn
+	 * @param lastColumn
+	 */
+	final void startEpoch(final int firstColumn, final int lastColumn) {
+		this.firstColumn = firstColumn;
+		this.lastColumn = lastColumn;
+		this.improvement = 0;
+		this.acceptedMoves = 0;
+		this.splits = 0;
+		this.unifications = 0;
+		this.blockMoves = 0;
+		this.rowGAPs = null;
+	}
+
+	/**
+	 * Perform a single iteration of the local search: a random GAP is moved
+	 * (and eventually split, or moved together with the GAPs aligned with it)
+	 * in a random direction. It returns TRUE if the
+	 * movement has been accepted, that is if there were an improvement or
+	 * (during the simulated annealing) a worsening accepted by chance.
+	 * 
+	 * @return
+	 * @throws SALSAException
+	 */
+	final boolean iterate() throws SALSAException {
+		if (this.GAPS.isEmpty()) {
+			return false;
+		}
+
+		GAP g = this.scheduler.nextGAP(this.GAPS, this.randomGenerator);
+		boolean left = this.scheduler.nextDirection(g, this.randomGenerator);
+		double split = this.randomGenerator.nextDouble();
+		// The movement could change only the columns that g can reach
+		int firstColumn = g.getBegin() - this.gamma;
+		int lastColumn = g.getEnd() + this.gamma;
+
+		boolean moveImprovement;
+		boolean splitMove = split < this.probabiltyOfSplit;
+		int blockSize = 0;
+		if (this.probabilityOfBlockMove > 0 && this.randomGenerator.nextDouble() < this.probabilityOfBlockMove) {
+			blockSize = collectBlock(g);
+		}
+
+		if (blockSize > 1) {
+			moveImprovement = moveBlock(blockSize, left);
+			if (moveImprovement) {
+				this.blockMoves++;
+			}
+		} else if (splitMove) {
+			moveImprovement = splitAndMove(g, left);
+		} else {
+			moveImprovement = move(g, left);
+		}
+
+		if (moveImprovement) {
+			this.improvement += this.lastChange;
+			this.acceptedMoves++;
+			this.scheduler.changed(firstColumn, lastColumn);
+		} else if (blockSize < 2) {
+			// A failed block says nothing about the GAP moved alone
+			this.scheduler.failed(g, left, splitMove);
+		}
+		return moveImprovement;
+	}
+
 	// PRIVATE METHODS
 	/**
-	 * GAPPosition is the index of the GAP to be moved (inside GAPS vector). The
+	 * gap is the GAP to be moved (it has to be inside GAPS list). The
 	 * method returns TRUE if there were an improvement. Variable left tells the
 	 * method the direction of the movement. split tells if there were a split
 	 * and this information is used only to choose properly the new position of
 	 * the GAP. splitAndMove will manage all the rest.
 	 * 
-	 * @param GAPPosition
+	 * @param gap
 	 * @param left
 	 * @return
 	 * @throws SALSAException
 	 */
-	private boolean move(final int GAPPosition, final boolean left)
+	private boolean move(final GAP gap, final boolean left)
 			throws SALSAException {
-		return move(GAPPosition, left, false);
+		return move(gap, left, false);
 	}
 
 	/**
-	 * GAPPosition is the index of the GAP to be moved (inside GAPS vector). The
+	 * gap is the GAP to be moved (it has to be inside GAPS list). The
 	 * method returns TRUE if there were an improvement. Variable left tells the
 	 * method the direction of the movement. split tells if there were a split
 	 * and this information is used only to choose properly the new position of
 	 * the GAP. splitAndMove will manage all the rest.
 	 * 
-	 * @param GAPPosition
+	 * @param gap
 	 * @param left
 	 * @param split
 	 * @return
 	 * @throws SALSAException
 	 */
-	private boolean move(final int GAPPosition, final boolean left, final boolean split)
+	private boolean move(final GAP gap, final boolean left, final boolean split)
 			throws SALSAException {
-		GAP g = this.GAPS.get(GAPPosition);
+		GAP g = gap;
+		this.lastChange = 0;
 
 		// g is terminal and it has to move in the wrong direction (that is,
-		// outside the sequence)
-		if ((left && (g.getBegin() == 0))
-				|| (!left && (g.getEnd() == this.align.getLength() - 1))) {
+		// outside the sequence or outside the columns range)
+		if (!canMove(g, left)) {
 			return false;
 		}
 
@@ -153,9 +694,27 @@ public final class LocalSearch {
 		// Improvement of the last move
 		double delta;
 
+		// The GAPs that could be modified by the movement and how many of them
+		// pay the opening penalty: used to calculate the exact change of the
+		// WSP-Score
+		GAP previous = g.getPrevious();
+		GAP next = g.getNext();
+		int openedGAPs = countOpenedGAP(g) + countOpenedGAP(previous) + countOpenedGAP(next);
+
+		// Sum of the improvements of the columns only (without penalties for
+		// opening GAPs) until now and in the best position
+		double columnsDelta = 0.0f;
+		double bestColumnsDelta = 0.0f;
+
 		// Total improvement in current iteration
 		double deltaSum = 0.0f;
 
+		// Best position that does not touch another GAP, also if it does not
+		// improve the alignment: it could be accepted by the annealing
+		int candidateIterator = 0;
+		double candidateDelta = 0.0f;
+		double candidateColumnsDelta = 0.0f;
+
 		boolean finished = false;
 		boolean improvement = false;
 
@@ -172,7 +731,7 @@ public final class LocalSearch {
 		 * opposite direction). Moreover, bestIterator correspond to the best
 		 * position tried so far.
 		 */
-		while (!finished && iterator < this.gamma) {
+		while (!finished && iterator < this.gamma && canMove(g, left)) {
 			// If g is not in the border
 			iterator++;
 
@@ -182,6 +741,7 @@ public final class LocalSearch {
 				delta = this.align.moveRight(g);
 
 			deltaSum += delta;
+			columnsDelta += delta;
 			if (g.nearAnotherGAP()) {
 				finished = true;
 
@@ -191,13 +751,16 @@ public final class LocalSearch {
 					g.unify();
 
 					// Delete g and remove it form GAPS vector
+					replaceRowGAP(g);
 					this.GAPS.remove(g);
+					this.pool.release(g);
 					g = null;
 
-					this.numberOfGAPS--;
+					this.unifications++;
 
 					deltaMax = deltaSum;
 					bestIterator = iterator;
+					bestColumnsDelta = columnsDelta;
 					improvement = true;
 				}
 			} else {
@@ -212,57 +775,378 @@ public final class LocalSearch {
 				if (deltaSum-deltaMax > 0.00001f) {
 					deltaMax = deltaSum;
 					bestIterator = iterator;
+					bestColumnsDelta = columnsDelta;
 					improvement = true;
 				}
+				if (candidateIterator == 0 || deltaSum > candidateDelta) {
+					candidateIterator = iterator;
+					candidateDelta = deltaSum;
+					candidateColumnsDelta = columnsDelta;
+				}
+			}
+		}
+
+		// Simulated annealing: without an improvement, the best position
+		// could be accepted anyway
+		if (!improvement && !split && candidateIterator > 0 && annealing()) {
+			for (; iterator > candidateIterator; iterator--) {
+				goBack(g, left);
+			}
+			int openedGAPsAfterMove = countOpenedGAP(g) + countOpenedGAP(previous) + countOpenedGAP(next);
+			if (acceptWorsening(candidateColumnsDelta - (openedGAPsAfterMove - openedGAPs) * deltaGOP)) {
+				if (!this.bestSaved) {
+					// The current alignment is the best one: save it before
+					// leaving it
+					for (; iterator > 0; iterator--) {
+						goBack(g, left);
+					}
+					saveBest();
+					for (; iterator < candidateIterator; iterator++) {
+						if (left)
+							this.align.moveLeft(g);
+						else
+							this.align.moveRight(g);
+					}
+				}
+				bestIterator = candidateIterator;
+				bestColumnsDelta = candidateColumnsDelta;
+				improvement = true;
 			}
 		}
 
 		// Here iterator is the number of movement done, bestIterator the right
 		// amount of movement
-		if (left)
-			for (; iterator > bestIterator; iterator--) {
-				align.goBackToRight(g);
+		for (; iterator > bestIterator; iterator--) {
+			goBack(g, left);
+		}
+
+		int openedGAPsAfterMove = countOpenedGAP(g) + countOpenedGAP(previous) + countOpenedGAP(next);
+		this.lastChange = bestColumnsDelta - (openedGAPsAfterMove - openedGAPs) * deltaGOP;
+
+		return improvement;
+	}
+
+	/**
+	 * Put inside the block buffer all the GAPs of the search with the same
+	 * begin and the same end of g (g included) and return their number. A
+	 * terminal GAP never forms a block.
+	 * 
+	 * @param g
+	 * @return
+	 */
+	private int collectBlock(final GAP g) {
+		if (g.terminalGAP()) {
+			return 0;
+		}
+		if (this.rowGAPs == null) {
+			createRowGAPs();
+		}
+
+		int begin = g.getBegin();
+		int end = g.getEnd();
+		int size = 0;
+		GAP other;
+		for (int row = 0; row < this.rowGAPs.length; row++) {
+			if (row == g.getRow()) {
+				other = g;
+			} else if (this.rowGAPs[row] == null || !this.align.mayContainGAP(row, begin, end)) {
+				continue;
+			} else {
+				other = findGAP(this.rowGAPs[row], begin);
+				this.rowGAPs[row] = other;
+			}
+			if (other.getBegin() == begin && other.getEnd() == end) {
+				this.block[size++] = other;
 			}
+		}
+		return size;
+	}
+
+	private void createRowGAPs() {
+		this.rowGAPs = new GAP[this.align.getNumberOfSequences()];
+		for (int i = 0; i < this.GAPS.size(); i++) {
+			GAP g = this.GAPS.get(i);
+			this.rowGAPs[g.getRow()] = g;
+		}
+	}
+
+	/**
+	 * Starting from g, follow the GAPs of the search in its row up to the one
+	 * nearest to column. The GAPs outside the search (the frozen ones of a
+	 * stripe) are never passed, since another thread could be changing the
+	 * GAPs after them.
+	 * 
+	 * @param g
+	 * @param column
+	 * @return
+	 */
+	private GAP findGAP(GAP g, final int column) {
+		GAP near;
+		while (g.getBegin() > column && (near = g.getPrevious()) != null && this.GAPS.contains(near)) {
+			g = near;
+		}
+		while (g.getEnd() < column && (near = g.getNext()) != null && this.GAPS.contains(near)) {
+			g = near;
+		}
+		return g;
+	}
+
+	/**
+	 * g is going to leave the search: if it is the GAP of its row, a
+	 * neighbour of the search takes its place; if there is none, the GAPs of
+	 * the rows are found again by the next block.
+	 * 
+	 * @param g
+	 */
+	private void replaceRowGAP(final GAP g) {
+		if (this.rowGAPs == null || this.rowGAPs[g.getRow()] != g) {
+			return;
+		}
+		if (g.getPrevious() != null && this.GAPS.contains(g.getPrevious())) {
+			this.rowGAPs[g.getRow()] = g.getPrevious();
+		} else if (g.getNext() != null && this.GAPS.contains(g.getNext())) {
+			this.rowGAPs[g.getRow()] = g.getNext();
+		} else {
+			this.rowGAPs = null;
+		}
+	}
+
+	/**
+	 * Like move(), but all the GAPs of the block buffer are moved together.
+	 * The number of GAPs does not change, so the exact change of the
+	 * WSP-Score is the one of the columns.
+	 * 
+	 * @param size
+	 *            number of GAPs in the block buffer
+	 * @param left
+	 * @return
+	 * @throws SALSAException
+	 */
+	private boolean moveBlock(final int size, final boolean left) throws SALSAException {
+		this.lastChange = 0;
+
+		double deltaSum = 0.0f;
+		double deltaMax = 0.0f;
+		int bestIterator = 0;
+		int iterator = 0;
+
+		while (iterator < this.gamma && canMoveBlock(size, left)) {
+			iterator++;
+			deltaSum += this.align.moveBlock(this.block, size, left);
+
+			if (deltaSum - deltaMax > 0.00001f) {
+				deltaMax = deltaSum;
+				bestIterator = iterator;
+			}
+		}
+
+		for (; iterator > bestIterator; iterator--) {
+			for (int i = 0; i < size; i++) {
+				goBack(this.block[i], left);
+			}
+		}
+
+		this.lastChange = deltaMax;
+		return bestIterator > 0;
+	}
+
+	/**
+	 * TRUE if all the GAPs of the block buffer could be moved of one position
+	 * in the given direction without leaving the columns range, without
+	 * becoming terminal and without touching another GAP
+	 * 
+	 * @param size
+	 * @param left
+	 * @return
+	 */
+	private boolean canMoveBlock(final int size, final boolean left) {
+		GAP near;
+		if (left) {
+			int begin = this.block[0].getBegin() - 1;
+			if (begin < 1 || begin < this.firstColumn) {
+				return false;
+			}
+			for (int i = 0; i < size; i++) {
+				near = this.block[i].getPrevious();
+				if (near != null && near.getEnd() >= begin - 1) {
+					return false;
+				}
+			}
+		} else {
+			int end = this.block[0].getEnd() + 1;
+			if (end > this.align.getLength() - 2 || end > this.lastColumn) {
+				return false;
+			}
+			for (int i = 0; i < size; i++) {
+				near = this.block[i].getNext();
+				if (near != null && near.getBegin() <= end + 1) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * 1 if the GAP pays the opening penalty, 0 otherwise (or if the GAP is
+	 * null)
+	 * 
+	 * @param g
+	 * @return
+	 */
+	private int countOpenedGAP(final GAP g) {
+		if (g == null || (this.terminal == TerminalGAPsStrategy.ONLY_GEP && g.terminalGAP())) {
+			return 0;
+		}
+		return 1;
+	}
+
+	/**
+	 * Undo one step of a movement in the given direction
+	 * 
+	 * @param g
+	 * @param left
+	 * @throws SALSAException
+	 */
+	private void goBack(final GAP g, final boolean left) throws SALSAException {
+		if (left)
+			this.align.goBackToRight(g);
 		else
-			// Right
-			for (; iterator > bestIterator; iterator--) {
-				align.goBackToLeft(g);
+			this.align.goBackToLeft(g);
+	}
+
+	/**
+	 * TRUE if the simulated annealing is running
+	 * 
+	 * @return
+	 */
+	private boolean annealing() {
+		return this.iterations < this.annealingIterations;
+	}
+
+	/**
+	 * Decide if a movement that changes the WSP-Score of change (usually
+	 * negative) is accepted. Until the temperature is calibrated, the
+	 * worsening movements are only measured and they are never accepted.
+	 * 
+	 * @param change
+	 * @return
+	 */
+	private boolean acceptWorsening(final double change) {
+		if (this.initialTemperature == 0) {
+			if (change < 0) {
+				this.calibrationSum -= change;
+				this.calibrationMoves++;
+				if (this.calibrationMoves == CALIBRATION_MOVES) {
+					this.initialTemperature = this.calibrationSum / CALIBRATION_MOVES / -Math.log(INITIAL_ACCEPTANCE);
+					this.temperature = this.initialTemperature;
+				}
 			}
+			return false;
+		}
+		return this.randomGenerator.nextDouble() < Math.exp(change / this.temperature);
+	}
 
-		return improvement;
+	private void saveBest() {
+		byte[] alignMatrix = this.align.getAlignMatrix();
+		if (this.bestMatrix == null) {
+			this.bestMatrix = new byte[alignMatrix.length];
+		}
+		System.arraycopy(alignMatrix, 0, this.bestMatrix, 0, alignMatrix.length);
+		this.bestSaved = true;
+	}
+
+	/**
+	 * Go back to the best alignment found, if the current one is worse
+	 * 
+	 * @throws SALSAException
+	 */
+	private void restoreBest() throws SALSAException {
+		if (this.improvement < this.bestImprovement && this.bestSaved) {
+			this.align.restore(this.bestMatrix);
+			this.rowGAPs = null;
+			this.improvement = this.bestImprovement;
+		}
+	}
+
+	private void saveCheckpoint() throws SALSAException {
+		try {
+			AlignmentSnapshot.save(this.align, getState(), this.checkpointFilePath);
+		} catch (IOException e) {
+			throw new SALSAException(e);
+		}
+	}
+
+	private LocalSearchProgress getProgress(final int iteration, final boolean completed) {
+		return new LocalSearchProgress(iteration, this.acceptedMoves, this.splits, this.unifications,
+				getScore(), completed);
+	}
+
+	/**
+	 * TRUE if the GAP could be moved of one position in the given direction
+	 * without leaving the columns range and without touching a GAP outside
+	 * the columns range.
+	 * 
+	 * @param g
+	 * @param left
+	 * @return
+	 */
+	private boolean canMove(final GAP g, final boolean left) {
+		GAP near;
+		if (left) {
+			if (g.getBegin() == this.firstColumn) {
+				return false;
+			}
+			near = g.getPrevious();
+			return near == null || near.getEnd() != g.getBegin() - 2 || near.getBegin() >= this.firstColumn;
+		} else {
+			if (g.getEnd() == this.lastColumn) {
+				return false;
+			}
+			near = g.getNext();
+			return near == null || near.getBegin() != g.getEnd() + 2 || near.getEnd() <= this.lastColumn;
+		}
 	}
 
 	/**
 	 * Like move() method, but it split the GAP before moving it
 	 * 
-	 * @param GAPPosition
+	 * @param g
 	 * @param left
 	 * @return
 	 * @throws SALSAException
 	 */
-	private boolean splitAndMove(final int GAPPosition, final boolean left)
+	private boolean splitAndMove(final GAP g, final boolean left)
 			throws SALSAException {
-		GAP g = this.GAPS.get(GAPPosition);
 		int length = g.getLength();
 
 		if (length > 1) {
 			int positionOfSplit = g.getBegin() + 
                                 this.randomGenerator.nextInt(length - 1);
 
+			int openedGAPs = countOpenedGAP(g);
+			// A unification releases g to the pool while it is moved
+			double deltaGOP = this.align.getGOP(g.getRow());
+
 			// newGAP will not be moved
-			GAP newGAP = g.split(positionOfSplit, !left);
-			boolean improvement = move(GAPPosition, left, true);
+			GAP newGAP = g.split(positionOfSplit, !left, this.pool);
+			int openedGAPsAfterSplit = countOpenedGAP(g) + countOpenedGAP(newGAP);
+			boolean improvement = move(g, left, true);
 			if (improvement) {
 				this.GAPS.add(newGAP);
-				this.numberOfGAPS++;
+				this.splits++;
+
+				// The split itself opens a new GAP
+				this.lastChange -= (openedGAPsAfterSplit - openedGAPs) * deltaGOP;
 			} else {
 				newGAP.unify();
+				this.pool.release(newGAP);
 			}
 
 			return improvement;
 		} else {
 			// The GAP's length is one, therefore is not possible to split it
-			return move(GAPPosition, left);
+			return move(g, left);
 		}
 	}
 }
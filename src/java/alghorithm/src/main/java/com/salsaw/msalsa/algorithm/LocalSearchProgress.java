@@ -0,0 +1,103 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.Serializable;
+
+/**
+ * State of a local search at a given moment.
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class LocalSearchProgress implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	// FIELDS
+	private final int iterations;
+	private final int acceptedMoves;
+	private final int splits;
+	private final int unifications;
+	private final double score;
+	private final boolean completed;
+
+	// CONSTRUCTOR
+	public LocalSearchProgress(final int iterations, final int acceptedMoves, final int splits,
+			final int unifications, final double score, final boolean completed) {
+		this.iterations = iterations;
+		this.acceptedMoves = acceptedMoves;
+		this.splits = splits;
+		this.unifications = unifications;
+		this.score = score;
+		this.completed = completed;
+	}
+
+	// GET / SET
+	public final int getIterations() {
+		return this.iterations;
+	}
+
+	/**
+	 * Number of movements that improved the alignment
+	 *
+	 * @return
+	 */
+	public final int getAcceptedMoves() {
+		return this.acceptedMoves;
+	}
+
+	/**
+	 * Number of accepted movements in which a GAP was split
+	 *
+	 * @return
+	 */
+	public final int getSplits() {
+		return this.splits;
+	}
+
+	/**
+	 * Number of accepted movements in which a GAP was joined to another one
+	 *
+	 * @return
+	 */
+	public final int getUnifications() {
+		return this.unifications;
+	}
+
+	/**
+	 * The WSP-Score of the current alignment
+	 *
+	 * @return
+	 */
+	public final double getScore() {
+		return this.score;
+	}
+
+	/**
+	 * TRUE if the search has ended
+	 *
+	 * @return
+	 */
+	public final boolean isCompleted() {
+		return this.completed;
+	}
+
+	@Override
+	public String toString() {
+		return "iterations: " + this.iterations + ", accepted moves: " + this.acceptedMoves + ", splits: "
+				+ this.splits + ", unifications: " + this.unifications + ", WSP-Score: " + this.score;
+	}
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.Serializable;
+
+/**
+ * Everything a local search needs to continue from where it stopped: the
+ * state of the random generator, the counters of the iterations, the
+ * improvement of the WSP-Score and the state of the simulated annealing.
+ * Together with the alignment it allows to resume a search with the same
+ * result of an uninterrupted one.
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class LocalSearchState implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	// FIELDS
+	private final long randomState;
+	private final int iterations;
+	private final int lastImprovement;
+	private final double initialScore;
+	private final double improvement;
+	private final double windowImprovement;
+	private final int acceptedMoves;
+	private final int splits;
+	private final int unifications;
+	private final int blockMoves;
+	private final double initialTemperature;
+	private final double temperature;
+	private final double calibrationSum;
+	private final int calibrationMoves;
+	private final double bestImprovement;
+	private final byte[] bestMatrix;
+
+	// CONSTRUCTOR
+	public LocalSearchState(final long randomState, final int iterations, final int lastImprovement,
+			final double initialScore, final double improvement, final double windowImprovement,
+			final int acceptedMoves, final int splits, final int unifications, final int blockMoves,
+			final double initialTemperature, final double temperature, final double calibrationSum,
+			final int calibrationMoves, final double bestImprovement, final byte[] bestMatrix) {
+		this.randomState = randomState;
+		this.iterations = iterations;
+		this.lastImprovement = lastImprovement;
+		this.initialScore = initialScore;
+		this.improvement = improvement;
+		this.windowImprovement = windowImprovement;
+		this.acceptedMoves = acceptedMoves;
+		this.splits = splits;
+		this.unifications = unifications;
+		this.blockMoves = blockMoves;
+		this.initialTemperature = initialTemperature;
+		this.temperature = temperature;
+		this.calibrationSum = calibrationSum;
+		this.calibrationMoves = calibrationMoves;
+		this.bestImprovement = bestImprovement;
+		this.bestMatrix = bestMatrix;
+	}
+
+	// GET / SET
+	/**
+	 * @return
+	 * @see FastRandom#getState()
+	 */
+	public final long getRandomState() {
+		return this.randomState;
+	}
+
+	public final int getIterations() {
+		return this.iterations;
+	}
+
+	/**
+	 * The last iteration that improved the alignment
+	 *
+	 * @return
+	 */
+	public final int getLastImprovement() {
+		return this.lastImprovement;
+	}
+
+	/**
+	 * WSP-Score of the alignment when the search started
+	 *
+	 * @return
+	 */
+	public final double getInitialScore() {
+		return this.initialScore;
+	}
+
+	/**
+	 * Sum of the improvements of all the accepted movements
+	 *
+	 * @return
+	 */
+	public final double getImprovement() {
+		return this.improvement;
+	}
+
+	/**
+	 * The improvement when the current window of the improvement rate
+	 * criterion started
+	 *
+	 * @return
+	 * @see LocalSearch#setMinImprovementRate(double)
+	 */
+	public final double getWindowImprovement() {
+		return this.windowImprovement;
+	}
+
+	public final int getAcceptedMoves() {
+		return this.acceptedMoves;
+	}
+
+	public final int getSplits() {
+		return this.splits;
+	}
+
+	public final int getUnifications() {
+		return this.unifications;
+	}
+
+	public final int getBlockMoves() {
+		return this.blockMoves;
+	}
+
+	/**
+	 * Initial temperature of the simulated annealing, 0 until it is
+	 * calibrated
+	 *
+	 * @return
+	 */
+	public final double getInitialTemperature() {
+		return this.initialTemperature;
+	}
+
+	public final double getTemperature() {
+		return this.temperature;
+	}
+
+	/**
+	 * Sum of the worsening movements measured to calibrate the temperature
+	 *
+	 * @return
+	 */
+	public final double getCalibrationSum() {
+		return this.calibrationSum;
+	}
+
+	public final int getCalibrationMoves() {
+		return this.calibrationMoves;
+	}
+
+	/**
+	 * The best improvement reached, that could be higher than the current
+	 * one during the simulated annealing
+	 *
+	 * @return
+	 */
+	public final double getBestImprovement() {
+		return this.bestImprovement;
+	}
+
+	/**
+	 * The matrix of the best alignment (see {@link Alignment#getAlignMatrix()}),
+	 * null if the current alignment is the best one
+	 *
+	 * @return
+	 */
+	public final byte[] getBestMatrix() {
+		return this.bestMatrix;
+	}
+}
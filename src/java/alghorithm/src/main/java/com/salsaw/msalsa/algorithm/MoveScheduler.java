@@ -0,0 +1,68 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+/**
+ * Choose the GAP moved by each iteration of a local search and the direction
+ * of the movement, using the results of the previous iterations.
+ * <p>
+ * A scheduler belongs to a single local search and it is informed of every
+ * movement done.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+interface MoveScheduler {
+	/**
+	 * The GAP to move
+	 * 
+	 * @param gaps
+	 *            the GAPs owned by the search (never empty)
+	 * @param random
+	 * @return
+	 */
+	GAP nextGAP(GAPList gaps, FastRandom random);
+
+	/**
+	 * TRUE if the GAP has to be moved to the left
+	 * 
+	 * @param g
+	 * @param random
+	 * @return
+	 */
+	boolean nextDirection(GAP g, FastRandom random);
+
+	/**
+	 * The movement of the GAP in the given direction did not improve the
+	 * alignment, which has not been modified
+	 * 
+	 * @param g
+	 * @param left
+	 * @param split
+	 *            TRUE if the GAP was split before the movement
+	 */
+	void failed(GAP g, boolean left, boolean split);
+
+	/**
+	 * A movement has been accepted: the cells of the columns range
+	 * [firstColumn, lastColumn] could be changed
+	 * 
+	 * @param firstColumn
+	 * @param lastColumn
+	 */
+	void changed(int firstColumn, int lastColumn);
+}
@@ -0,0 +1,266 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.salsaw.msalsa.algorithm.enums.MoveSelection;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Perform more independent local searches in parallel and keep the best
+ * result.
+ * <p>
+ * Each search works on its own copy of the input alignment and uses a
+ * different seed, therefore the searches follow different paths and could
+ * end in different local optimums. The alignment with the highest WSP-Score
+ * is returned.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class MultiStartLocalSearch {
+	// FIELDS
+	private final Alignment align;
+	private final int gamma;
+	private final int minIterations;
+	private final double probabiltyOfSplit;
+	private final int numberOfRestarts;
+	private final int numberOfThreads;
+	private final long[] seeds;
+	/**
+	 * WSP-Score obtained by each search (the index is the one of the seed)
+	 */
+	private final double[] scores;
+	/**
+	 * Number of iterations done by each search
+	 */
+	private final int[] iterations;
+	private int bestRun;
+
+	private long timeLimit;
+	private double minImprovementRate;
+	private MoveSelection moveSelection = MoveSelection.UNIFORM;
+	private double probabilityOfBlockMove;
+	private int annealingIterations;
+
+	// CONSTRUCTOR
+	public MultiStartLocalSearch(final Alignment alignment, final int gamma, final int minIterations,
+			final double probabiltyOfSplit, final int numberOfRestarts, final int numberOfThreads) {
+		this(alignment, gamma, minIterations, probabiltyOfSplit, numberOfRestarts, numberOfThreads,
+				System.currentTimeMillis());
+	}
+
+	/**
+	 * The seeds of the searches are generated from the given one, therefore
+	 * the same seed always produces the same searches.
+	 * 
+	 * @param alignment
+	 * @param gamma
+	 * @param minIterations
+	 * @param probabiltyOfSplit
+	 * @param numberOfRestarts
+	 * @param numberOfThreads
+	 * @param seed
+	 */
+	public MultiStartLocalSearch(final Alignment alignment, final int gamma, final int minIterations,
+			final double probabiltyOfSplit, final int numberOfRestarts, final int numberOfThreads,
+			final long seed) {
+		if (numberOfRestarts < 1) {
+			throw new IllegalArgumentException("numberOfRestarts");
+		}
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads");
+		}
+
+		this.align = alignment;
+		this.gamma = gamma;
+		this.minIterations = minIterations;
+		this.probabiltyOfSplit = probabiltyOfSplit;
+		this.numberOfRestarts = numberOfRestarts;
+		this.numberOfThreads = Math.min(numberOfThreads, numberOfRestarts);
+		this.scores = new double[numberOfRestarts];
+		this.iterations = new int[numberOfRestarts];
+		this.bestRun = -1;
+
+		// Generate a different seed for each search
+		FastRandom random = new FastRandom(seed);
+		this.seeds = new long[numberOfRestarts];
+		for (int i = 0; i < numberOfRestarts; i++) {
+			this.seeds[i] = random.nextLong();
+		}
+	}
+
+	// GET / SET
+	/**
+	 * The WSP-Score reached by each search
+	 *
+	 * @return
+	 */
+	public final double[] getScores() {
+		return this.scores;
+	}
+
+	public final long[] getSeeds() {
+		return this.seeds;
+	}
+
+	public final int[] getIterations() {
+		return this.iterations;
+	}
+
+	/**
+	 * Index of the search that produced the returned alignment
+	 *
+	 * @return
+	 */
+	public final int getBestRun() {
+		return this.bestRun;
+	}
+
+	/**
+	 * Maximum duration of all the searches together: the searches still
+	 * running (or waiting for a thread) when the time ends return the best
+	 * alignment they found. 0 means no limit.
+	 * 
+	 * @param timeLimit
+	 *            milliseconds
+	 */
+	public final void setTimeLimit(final long timeLimit) {
+		if (timeLimit < 0) {
+			throw new IllegalArgumentException("timeLimit");
+		}
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * @param minImprovementRate
+	 * @see LocalSearch#setMinImprovementRate(double)
+	 */
+	public final void setMinImprovementRate(final double minImprovementRate) {
+		if (minImprovementRate < 0) {
+			throw new IllegalArgumentException("minImprovementRate");
+		}
+		this.minImprovementRate = minImprovementRate;
+	}
+
+	/**
+	 * @param moveSelection
+	 * @see LocalSearch#setMoveSelection(MoveSelection)
+	 */
+	public final void setMoveSelection(final MoveSelection moveSelection) {
+		if (moveSelection == null) {
+			throw new IllegalArgumentException("moveSelection");
+		}
+		this.moveSelection = moveSelection;
+	}
+
+	/**
+	 * @param probabilityOfBlockMove
+	 * @see LocalSearch#setBlockMoveProbability(double)
+	 */
+	public final void setBlockMoveProbability(final double probabilityOfBlockMove) {
+		if (probabilityOfBlockMove < 0 || probabilityOfBlockMove > 1) {
+			throw new IllegalArgumentException("probabilityOfBlockMove");
+		}
+		this.probabilityOfBlockMove = probabilityOfBlockMove;
+	}
+
+	/**
+	 * @param annealingIterations
+	 * @see LocalSearch#setAnnealing(int)
+	 */
+	public final void setAnnealing(final int annealingIterations) {
+		if (annealingIterations < 0) {
+			throw new IllegalArgumentException("annealingIterations");
+		}
+		this.annealingIterations = annealingIterations;
+	}
+
+	// PUBLIC METHODS
+	/**
+	 * Start all the searches and return the alignment with the best WSP-Score.
+	 * The input alignment is not modified.
+	 *
+	 * @return
+	 * @throws SALSAException
+	 * @throws InterruptedException
+	 */
+	public final Alignment execute() throws SALSAException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads);
+		try {
+			CompletionService<Integer> completionService = new ExecutorCompletionService<>(executor);
+			final Alignment[] results = new Alignment[this.numberOfRestarts];
+			final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeLimit);
+
+			for (int i = 0; i < this.numberOfRestarts; i++) {
+				final int run = i;
+				completionService.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						Alignment copy = new Alignment(align);
+						LocalSearch localSearch = new LocalSearch(copy, gamma, minIterations, probabiltyOfSplit,
+								seeds[run]);
+						localSearch.setMinImprovementRate(minImprovementRate);
+						localSearch.setMoveSelection(moveSelection);
+						localSearch.setAnnealing(annealingIterations);
+						localSearch.setBlockMoveProbability(probabilityOfBlockMove);
+						if (timeLimit > 0) {
+							// At least one millisecond: a search that starts
+							// too late still does a few iterations
+							localSearch.setTimeLimit(
+									Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+						}
+						results[run] = localSearch.execute();
+						scores[run] = results[run].WSP();
+						iterations[run] = localSearch.getIterations();
+						return run;
+					}
+				});
+			}
+
+			Alignment bestAlignment = null;
+			for (int i = 0; i < this.numberOfRestarts; i++) {
+				int run = completionService.take().get();
+				// With the same score the first search wins, so that the
+				// result does not depend on the order of completion
+				if (bestAlignment == null || this.scores[run] > this.scores[this.bestRun]
+						|| (this.scores[run] == this.scores[this.bestRun] && run < this.bestRun)) {
+					bestAlignment = results[run];
+					this.bestRun = run;
+				}
+				// Release the alignments that are not useful anymore
+				results[run] = null;
+			}
+
+			return bestAlignment;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SALSAException) {
+				throw (SALSAException) e.getCause();
+			}
+			throw new SALSAException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,275 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Parser of a tree in the Newick notation, read from a buffer (a byte array
+ * or a file mapped in memory).
+ * <p>
+ * The parser is iterative: the children of the internal nodes still open
+ * are kept in a stack, so the depth of the tree is not limited by the stack
+ * of the thread. Labels could be quoted ('' is a quote inside a quoted
+ * label), comments inside square brackets are skipped, and the lengths of
+ * the branches are optional (0 if they are missing). The labels of the
+ * internal nodes are ignored.
+ * </p>
+ * <p>
+ * The nodes of the tree are binary: a node with more than two children is
+ * split in a chain of nodes, each one with a new child, joined by branches
+ * of length 0 (the same done by ClustalW for the root with three children).
+ * The added nodes are called {@value #ARTIFICIAL_NODE_NAME}.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+final class NewickParser {
+	// CONSTANTS
+	static final String ARTIFICIAL_NODE_NAME = "ARTIFICIAL";
+	private static final int END = -1;
+
+	// FIELDS
+	private final ByteBuffer newick;
+	private final int limit;
+	private int position;
+	private int numberOfLeaves;
+
+	// CONSTRUCTOR
+	NewickParser(final ByteBuffer newick) {
+		this.newick = newick;
+		this.position = newick.position();
+		this.limit = newick.limit();
+	}
+
+	// GET / SET
+	/**
+	 * Number of leaves found by parse()
+	 * 
+	 * @return
+	 */
+	final int getNumberOfLeaves() {
+		return this.numberOfLeaves;
+	}
+
+	// METHODS
+	/**
+	 * Create the nodes of the tree and return its root. The leaves are
+	 * stored inside the given array, in the order of the file.
+	 * 
+	 * @param leaves
+	 * @return
+	 * @throws SALSAException
+	 */
+	final Node parse(final Node[] leaves) throws SALSAException {
+		// Children of the internal nodes still open, the innermost on top
+		ArrayDeque<ArrayList<Node>> openNodes = new ArrayDeque<>();
+
+		while (true) {
+			// Begin of a subtree
+			if (peek() == '(') {
+				this.position++;
+				openNodes.push(new ArrayList<Node>(2));
+				continue;
+			}
+
+			if (this.numberOfLeaves == leaves.length) {
+				throw new SALSAException("Error: the tree has more leaves than the sequences of the alignment");
+			}
+			Node completed = new Node(readLabel(), null, null, null, 0);
+			readDistance(completed);
+			leaves[this.numberOfLeaves++] = completed;
+
+			// Close all the subtrees that end after the completed one
+			while (true) {
+				int symbol = peek();
+				if (openNodes.isEmpty()) {
+					if (symbol != ';' && symbol != END) {
+						throw unexpectedSymbol();
+					}
+					return completed;
+				}
+
+				this.position++;
+				if (symbol == ',') {
+					openNodes.peek().add(completed);
+					break;
+				} else if (symbol == ')') {
+					ArrayList<Node> children = openNodes.pop();
+					children.add(completed);
+					completed = createInternalNode(children);
+					readLabel();
+					readDistance(completed);
+				} else {
+					this.position--;
+					throw unexpectedSymbol();
+				}
+			}
+		}
+	}
+
+	// PRIVATE METHODS
+	/**
+	 * Create the node of the given children (at least one). The distances of
+	 * the children must already be set: the parent uses them to calculate
+	 * its sums.
+	 * 
+	 * @param children
+	 * @return
+	 */
+	private static Node createInternalNode(final ArrayList<Node> children) {
+		Node node = new Node("", null, null, null, 0);
+		node.setLeft(children.get(0));
+		children.get(0).setParent(node);
+		if (children.size() > 1) {
+			node.setRight(children.get(1));
+			children.get(1).setParent(node);
+		}
+
+		for (int i = 2; i < children.size(); i++) {
+			Node artificial = new Node(ARTIFICIAL_NODE_NAME, node, null, null, 0);
+			node.setParent(artificial);
+			artificial.setRight(children.get(i));
+			children.get(i).setParent(artificial);
+			node = artificial;
+		}
+
+		return node;
+	}
+
+	/**
+	 * Read a label, quoted or not, that could be empty
+	 * 
+	 * @return
+	 * @throws SALSAException
+	 */
+	private String readLabel() throws SALSAException {
+		if (peek() != '\'') {
+			int begin = this.position;
+			while (this.position < this.limit && !isDelimiter(this.newick.get(this.position))) {
+				this.position++;
+			}
+			return toString(begin, this.position);
+		}
+
+		StringBuilder label = new StringBuilder();
+		this.position++;
+		while (true) {
+			int begin = this.position;
+			while (this.position < this.limit && this.newick.get(this.position) != '\'') {
+				this.position++;
+			}
+			if (this.position == this.limit) {
+				throw new SALSAException("Error: quoted label not closed in the tree");
+			}
+			label.append(toString(begin, this.position));
+			this.position++;
+
+			// Two quotes are a quote inside the label
+			if (this.position < this.limit && this.newick.get(this.position) == '\'') {
+				label.append('\'');
+				this.position++;
+			} else {
+				return label.toString();
+			}
+		}
+	}
+
+	/**
+	 * Read the length of the branch above the node, if it is present
+	 * 
+	 * @param node
+	 * @throws SALSAException
+	 */
+	private void readDistance(final Node node) throws SALSAException {
+		if (peek() != ':') {
+			return;
+		}
+		this.position++;
+		peek();
+
+		int begin = this.position;
+		while (this.position < this.limit && !isDelimiter(this.newick.get(this.position))) {
+			this.position++;
+		}
+		String distance = toString(begin, this.position);
+		try {
+			// Read as float, like the distances written by ClustalW
+			node.setDistance(Float.parseFloat(distance));
+		} catch (NumberFormatException e) {
+			throw new SALSAException("Error: invalid branch length '" + distance + "' in the tree");
+		}
+	}
+
+	/**
+	 * Skip spaces and comments and return the next symbol (END at the end of
+	 * the tree) without consuming it
+	 * 
+	 * @return
+	 * @throws SALSAException
+	 */
+	private int peek() throws SALSAException {
+		while (this.position < this.limit) {
+			byte b = this.newick.get(this.position);
+			if (b == '[') {
+				while (this.position < this.limit && this.newick.get(this.position) != ']') {
+					this.position++;
+				}
+				if (this.position == this.limit) {
+					throw new SALSAException("Error: comment not closed in the tree");
+				}
+			} else if (!isSpace(b)) {
+				return b;
+			}
+			this.position++;
+		}
+		return END;
+	}
+
+	private SALSAException unexpectedSymbol() throws SALSAException {
+		int symbol = peek();
+		return new SALSAException("Error: unexpected " + (symbol == END ? "end" : "symbol '" + (char) symbol + "'")
+				+ " at position " + this.position + " of the tree");
+	}
+
+	private String toString(final int begin, final int end) {
+		byte[] bytes = new byte[end - begin];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = this.newick.get(begin + i);
+		}
+		return new String(bytes, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Spaces and control characters (carriage return included)
+	 * 
+	 * @param b
+	 * @return
+	 */
+	private static boolean isSpace(final byte b) {
+		return b >= 0 && b <= ' ';
+	}
+
+	private static boolean isDelimiter(final byte b) {
+		return isSpace(b) || b == '(' || b == ')' || b == ',' || b == ':' || b == ';' || b == '[';
+	}
+}
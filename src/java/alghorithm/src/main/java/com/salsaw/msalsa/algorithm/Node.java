@@ -15,6 +15,9 @@
  */
 package com.salsaw.msalsa.algorithm;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
 
 /**
@@ -191,48 +194,74 @@ public final class Node {
 	 */
 	public final Node calculatePositionOfRoot(final int totalNumberOfLeafs,
 			final double parentLeftSum) throws SALSAException {
-		Node brother = getBrother();
-		int numberOfLeftLeaves = totalNumberOfLeafs - this.descendantLeaves;
-
-		// Distances of brother's descendant leaves from parent
-		double d = 0;
-		if (brother != null) {
-			d = brother.distancesSum + brother.distance
-					* brother.descendantLeaves;
-		}
+		// Post-order visit with an explicit stack, so that deep trees cannot
+		// overflow the stack of the thread. sums contains parentLeftSum until
+		// the node is expanded, then the sum d of the node itself.
+		Node[] nodes = new Node[16];
+		double[] sums = new double[16];
+		boolean[] expanded = new boolean[16];
+		int size = 1;
+		nodes[0] = this;
+		sums[0] = parentLeftSum;
+
+		while (size > 0) {
+			Node node = nodes[size - 1];
+			int numberOfLeftLeaves = totalNumberOfLeafs - node.descendantLeaves;
+
+			if (expanded[size - 1]) {
+				size--;
+
+				double leftMean = 0.0f;
+				if (numberOfLeftLeaves != 0) {
+					leftMean = sums[size] / numberOfLeftLeaves;
+				}
+
+				double currentDifference = leftMean
+						- (node.distancesSum / node.descendantLeaves);
+				if (currentDifference == 0
+						|| (currentDifference > 0 && currentDifference < 2 * node.distance)) {
+					node.difference = currentDifference;
+					return node;
+				}
+				continue;
+			}
+
+			Node brother = node.getBrother();
 
-		// Distances of all left leaves from parent
-		d += parentLeftSum;
+			// Distances of brother's descendant leaves from parent
+			double d = 0;
+			if (brother != null) {
+				d = brother.distancesSum + brother.distance
+						* brother.descendantLeaves;
+			}
 
-		// Distances of all left leaves from the current node
-		d += this.distance * numberOfLeftLeaves;
+			// Distances of all left leaves from parent
+			d += sums[size - 1];
 
-		double leftMean = 0.0f;
-		if (numberOfLeftLeaves != 0) {
-			leftMean = d / numberOfLeftLeaves;
-		}
+			// Distances of all left leaves from the current node
+			d += node.distance * numberOfLeftLeaves;
 
-		if (this.left != null) {
-			Node rootLeft = this.left.calculatePositionOfRoot(
-					totalNumberOfLeafs, d);
-			if (rootLeft != null) {
-				return rootLeft;
+			sums[size - 1] = d;
+			expanded[size - 1] = true;
+
+			if (size + 2 > nodes.length) {
+				nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+				sums = Arrays.copyOf(sums, 2 * sums.length);
+				expanded = Arrays.copyOf(expanded, 2 * expanded.length);
 			}
-		}
-		if (this.right != null) {
-			Node rootRight = this.right.calculatePositionOfRoot(
-					totalNumberOfLeafs, d);
-			if (rootRight != null) {
-				return rootRight;
+			// The left son is visited first
+			if (node.right != null) {
+				nodes[size] = node.right;
+				sums[size] = d;
+				expanded[size] = false;
+				size++;
+			}
+			if (node.left != null) {
+				nodes[size] = node.left;
+				sums[size] = d;
+				expanded[size] = false;
+				size++;
 			}
-		}
-
-		double currentDifference = leftMean
-				- (this.distancesSum / this.descendantLeaves);
-		if (currentDifference == 0
-				|| (currentDifference > 0 && currentDifference < 2 * this.distance)) {
-			this.difference = currentDifference;
-			return this;
 		}
 
 		return null;
@@ -272,29 +301,33 @@ public final class Node {
 	// PRIVATE METHODS
 	/**
 	 * Right now, newParent is a son of the current node. The method invert the
-	 * current parent with newParent and do a recursive call.
+	 * current parent with newParent and repeat on the old parent, up to the
+	 * old root.
 	 * 
 	 * @throws SALSAException
 	 */
-	private void invertNode(final Node newParent, final double newDistance)
+	private void invertNode(Node newParent, double newDistance)
 			throws SALSAException {
-		Node oldParent = this.parent;
-		double oldDistance = this.distance;
-		this.parent = newParent;
-		this.distance = newDistance;
-
-		if (this.left == newParent) {
-			this.left = oldParent;
-		} else if (this.right == newParent) {
-			this.right = oldParent;
-		} else {
-			throw new SALSAException(
-					"Error while trying to invert parent with son in the tree.");
-		}
+		Node current = this;
+		while (current != null) {
+			Node oldParent = current.parent;
+			double oldDistance = current.distance;
+			current.parent = newParent;
+			current.distance = newDistance;
+
+			if (current.left == newParent) {
+				current.left = oldParent;
+			} else if (current.right == newParent) {
+				current.right = oldParent;
+			} else {
+				throw new SALSAException(
+						"Error while trying to invert parent with son in the tree.");
+			}
 
-		if (oldParent != null) {
-			// Recursive call on old parent
-			oldParent.invertNode(this, oldDistance);
+			// Continue on old parent
+			newParent = current;
+			newDistance = oldDistance;
+			current = oldParent;
 		}
 	}
 
@@ -306,17 +339,34 @@ public final class Node {
 	 * @return
 	 */
 	private int calculateDescendantLeaves() {
-		this.descendantLeaves = 0;
-		if (this.left != null) {
-			this.descendantLeaves = this.left.calculateDescendantLeaves();
-		}
-		if (this.right != null) {
-			this.descendantLeaves += this.right.calculateDescendantLeaves();
+		// Nodes in breadth-first order: visited backwards, the sons always
+		// come before their parent
+		ArrayList<Node> nodes = new ArrayList<>();
+		nodes.add(this);
+		for (int i = 0; i < nodes.size(); i++) {
+			Node node = nodes.get(i);
+			if (node.left != null) {
+				nodes.add(node.left);
+			}
+			if (node.right != null) {
+				nodes.add(node.right);
+			}
 		}
 
-		if (this.descendantLeaves == 0) {
-			// The node is a leaf itself
-			this.descendantLeaves = 1;
+		for (int i = nodes.size() - 1; i >= 0; i--) {
+			Node node = nodes.get(i);
+			node.descendantLeaves = 0;
+			if (node.left != null) {
+				node.descendantLeaves = node.left.descendantLeaves;
+			}
+			if (node.right != null) {
+				node.descendantLeaves += node.right.descendantLeaves;
+			}
+
+			if (node.descendantLeaves == 0) {
+				// The node is a leaf itself
+				node.descendantLeaves = 1;
+			}
 		}
 		return this.descendantLeaves;
 	}
@@ -0,0 +1,445 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.salsaw.msalsa.algorithm.enums.MoveSelection;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Perform a single local search using more threads.
+ * <p>
+ * The columns of the alignment are divided in stripes separated by guard
+ * columns. During an epoch every stripe is searched by its own thread, that
+ * moves only the GAPs inside the stripe. Since the counters and the alignment
+ * are updated column by column, searches on different stripes never touch
+ * the same cells and the improvement computed by each move is exact. At the
+ * end of each epoch the stripes are shifted of half a stripe, so that the
+ * GAPs near a border could move during the next epoch.
+ * </p>
+ * <p>
+ * The search of each stripe, with its list of GAPs and its pool, lives for
+ * the whole execution: at every epoch only the GAPs that change stripe are
+ * moved to another list. The GAPs of the alignment are collected again at
+ * the end of the execution.
+ * </p>
+ * <p>
+ * A GAP is frozen for the whole epoch if it is not completely inside a
+ * stripe or if one of the GAPs near it in the same row belongs to another
+ * stripe: in that way two threads never modify the same GAP.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class StripedLocalSearch {
+	// CONSTANTS
+	/**
+	 * Number of columns between two stripes that are not assigned to any
+	 * stripe
+	 */
+	private static final int GUARD = 1;
+
+	/**
+	 * Minimum number of columns of a stripe
+	 */
+	private static final int MIN_STRIPE_WIDTH = 8;
+
+	// FIELDS
+	private final Alignment align;
+	private final int gamma;
+	private final int minIterations;
+	private final double probabiltyOfSplit;
+	private final int numberOfStripes;
+	private final int numberOfThreads;
+	private final FastRandom randomGenerator;
+	/**
+	 * Number of iterations done by each stripe before synchronising them. All
+	 * the stripes together do about minIterations / 2 iterations per epoch,
+	 * like a single search would do in the same time.
+	 */
+	private final int epochIterations;
+
+	private int numberOfEpochs;
+	private int iterations;
+
+	/**
+	 * The current WSP-Score: the initial one plus the improvements found by
+	 * the stripes
+	 */
+	private double score;
+	private int acceptedMoves;
+	private int splits;
+	private int unifications;
+
+	private LocalSearchListener listener;
+	private int progressInterval;
+
+	private long timeLimit;
+	private double minImprovementRate;
+	private boolean timeLimitReached;
+	private MoveSelection moveSelection = MoveSelection.UNIFORM;
+	private double probabilityOfBlockMove;
+
+	// CONSTRUCTOR
+	public StripedLocalSearch(final Alignment alignment, final int gamma, final int minIterations,
+			final double probabiltyOfSplit, final int numberOfStripes, final int numberOfThreads) {
+		this(alignment, gamma, minIterations, probabiltyOfSplit, numberOfStripes, numberOfThreads,
+				System.currentTimeMillis());
+	}
+
+	public StripedLocalSearch(final Alignment alignment, final int gamma, final int minIterations,
+			final double probabiltyOfSplit, final int numberOfStripes, final int numberOfThreads,
+			final long seed) {
+		if (numberOfStripes < 1) {
+			throw new IllegalArgumentException("numberOfStripes");
+		}
+		if (numberOfThreads < 1) {
+			throw new IllegalArgumentException("numberOfThreads");
+		}
+
+		this.align = alignment;
+		this.gamma = gamma;
+		this.minIterations = minIterations;
+		this.probabiltyOfSplit = probabiltyOfSplit;
+		// Too narrow stripes would freeze most of the GAPs
+		this.numberOfStripes = Math.max(1,
+				Math.min(numberOfStripes, alignment.getLength() / MIN_STRIPE_WIDTH));
+		this.numberOfThreads = Math.min(numberOfThreads, this.numberOfStripes);
+		this.randomGenerator = new FastRandom(seed);
+		this.epochIterations = Math.max(1, minIterations / (2 * this.numberOfStripes));
+	}
+
+	// GET / SET
+	public final int getNumberOfStripes() {
+		return this.numberOfStripes;
+	}
+
+	public final int getNumberOfEpochs() {
+		return this.numberOfEpochs;
+	}
+
+	/**
+	 * Number of iterations done by all the stripes during the last execution
+	 * 
+	 * @return
+	 */
+	public final int getIterations() {
+		return this.iterations;
+	}
+
+	/**
+	 * The WSP-Score of the alignment, kept updated at the end of each epoch
+	 * 
+	 * @return
+	 */
+	public final double getScore() {
+		return this.score;
+	}
+
+	/**
+	 * The listener is notified at the end of the first epoch after every
+	 * progressInterval iterations and at the end of the execution
+	 * 
+	 * @param listener
+	 * @param progressInterval
+	 */
+	public final void setListener(final LocalSearchListener listener, final int progressInterval) {
+		if (progressInterval < 1) {
+			throw new IllegalArgumentException("progressInterval");
+		}
+		this.listener = listener;
+		this.progressInterval = progressInterval;
+	}
+
+	/**
+	 * Stop the execution at the end of the first epoch after the given time.
+	 * 0 means no limit.
+	 * 
+	 * @param timeLimit
+	 *            milliseconds
+	 * @see LocalSearch#setTimeLimit(long)
+	 */
+	public final void setTimeLimit(final long timeLimit) {
+		if (timeLimit < 0) {
+			throw new IllegalArgumentException("timeLimit");
+		}
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * @param minImprovementRate
+	 * @see LocalSearch#setMinImprovementRate(double)
+	 */
+	public final void setMinImprovementRate(final double minImprovementRate) {
+		if (minImprovementRate < 0) {
+			throw new IllegalArgumentException("minImprovementRate");
+		}
+		this.minImprovementRate = minImprovementRate;
+	}
+
+	/**
+	 * The history of the movements is restarted at every epoch, because the
+	 * GAPs change stripe and the other stripes changed the columns near them:
+	 * the failures stored inside the GAPs are forgotten.
+	 * 
+	 * @param moveSelection
+	 * @see LocalSearch#setMoveSelection(MoveSelection)
+	 */
+	public final void setMoveSelection(final MoveSelection moveSelection) {
+		if (moveSelection == null) {
+			throw new IllegalArgumentException("moveSelection");
+		}
+		this.moveSelection = moveSelection;
+	}
+
+	/**
+	 * @param probabilityOfBlockMove
+	 * @see LocalSearch#setBlockMoveProbability(double)
+	 */
+	public final void setBlockMoveProbability(final double probabilityOfBlockMove) {
+		if (probabilityOfBlockMove < 0 || probabilityOfBlockMove > 1) {
+			throw new IllegalArgumentException("probabilityOfBlockMove");
+		}
+		this.probabilityOfBlockMove = probabilityOfBlockMove;
+	}
+
+	public final boolean isTimeLimitReached() {
+		return this.timeLimitReached;
+	}
+
+	// PUBLIC METHODS
+	/**
+	 * Execute the search. The search ends when the stripes together do
+	 * minIterations iterations without finding an improvement, when the
+	 * improvement rate falls below minImprovementRate or when the time limit
+	 * is reached. The stopping criteria are checked at the end of each epoch.
+	 *
+	 * @return
+	 * @throws SALSAException
+	 * @throws InterruptedException
+	 */
+	public final Alignment execute() throws SALSAException, InterruptedException {
+		GAPList GAPS = this.align.getGAPS();
+		int length = this.align.getLength();
+		int width = length / this.numberOfStripes;
+		this.score = this.align.WSP();
+
+		// Every GAP can be inside only one list: at first all of them are
+		// frozen, the first epoch assigns them to the stripes
+		GAPList frozen = new GAPList(GAPS.size());
+		frozen.addAll(GAPS);
+		GAPS.clear();
+		List<GAPList> stripes = new ArrayList<>(this.numberOfStripes);
+		List<LocalSearch> stripeSearches = new ArrayList<>(this.numberOfStripes);
+		for (int s = 0; s < this.numberOfStripes; s++) {
+			GAPList stripe = new GAPList();
+			LocalSearch stripeSearch = new LocalSearch(this.align, stripe, this.gamma, this.minIterations,
+					this.probabiltyOfSplit, this.randomGenerator.nextLong(), 0, length - 1);
+			stripeSearch.setMoveSelection(this.moveSelection);
+			stripeSearch.setBlockMoveProbability(this.probabilityOfBlockMove);
+			stripes.add(stripe);
+			stripeSearches.add(stripeSearch);
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(this.numberOfThreads);
+		try {
+			int lastImprovement = 0;
+			int iteration = 0;
+			int nextProgress = this.progressInterval;
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeLimit);
+			this.timeLimitReached = false;
+			this.numberOfEpochs = 0;
+			this.acceptedMoves = 0;
+			this.splits = 0;
+			this.unifications = 0;
+			int windowStart = 0;
+			double windowScore = this.score;
+
+			while (lastImprovement + this.minIterations > iteration) {
+				// Odd epochs shift the borders of half a stripe
+				int offset = (this.numberOfEpochs % 2 == 0) ? 0 : width / 2;
+				int[] firstColumns = new int[this.numberOfStripes];
+				int[] lastColumns = new int[this.numberOfStripes];
+				for (int s = 0; s < this.numberOfStripes; s++) {
+					firstColumns[s] = (s == 0) ? 0 : s * width + offset;
+					lastColumns[s] = (s == this.numberOfStripes - 1) ? length - 1
+							: (s + 1) * width + offset - 1 - GUARD;
+				}
+
+				// Move the GAPs that changed stripe
+				reassign(frozen, frozen, stripes, width, offset, firstColumns, lastColumns);
+				for (GAPList stripe : stripes) {
+					reassign(stripe, frozen, stripes, width, offset, firstColumns, lastColumns);
+				}
+
+				// Search every stripe in parallel
+				List<Future<Boolean>> results = new ArrayList<>(this.numberOfStripes);
+				for (int s = 0; s < this.numberOfStripes; s++) {
+					final LocalSearch stripeSearch = stripeSearches.get(s);
+					stripeSearch.startEpoch(firstColumns[s], lastColumns[s]);
+					results.add(executor.submit(new Callable<Boolean>() {
+						@Override
+						public Boolean call() throws Exception {
+							boolean improvement = false;
+							for (int i = 0; i < epochIterations; i++) {
+								if (stripeSearch.iterate()) {
+									improvement = true;
+								}
+							}
+							return improvement;
+						}
+					}));
+				}
+
+				boolean improvement = false;
+				for (Future<Boolean> result : results) {
+					if (result.get()) {
+						improvement = true;
+					}
+				}
+				for (LocalSearch stripeSearch : stripeSearches) {
+					this.score += stripeSearch.getImprovement();
+					this.acceptedMoves += stripeSearch.getAcceptedMoves();
+					this.splits += stripeSearch.getSplits();
+					this.unifications += stripeSearch.getUnifications();
+				}
+
+				iteration += this.epochIterations * this.numberOfStripes;
+				if (improvement) {
+					lastImprovement = iteration;
+				}
+				this.numberOfEpochs++;
+
+				if (this.listener != null && iteration >= nextProgress) {
+					this.listener.progress(new LocalSearchProgress(iteration, this.acceptedMoves, this.splits,
+							this.unifications, this.score, false));
+					nextProgress = iteration + this.progressInterval;
+				}
+
+				if (this.timeLimit > 0 && System.nanoTime() - deadline >= 0) {
+					this.timeLimitReached = true;
+					break;
+				}
+
+				if (this.minImprovementRate > 0 && iteration - windowStart >= this.minIterations) {
+					if (this.score - windowScore < this.minImprovementRate * (iteration - windowStart)) {
+						break;
+					}
+					windowStart = iteration;
+					windowScore = this.score;
+				}
+			}
+			this.iterations = iteration;
+
+			// The GAPs of the alignment are the frozen ones and the ones that
+			// are still alive in the stripes
+			GAPS.addAll(frozen);
+			for (GAPList stripe : stripes) {
+				GAPS.addAll(stripe);
+			}
+
+			if (this.listener != null) {
+				this.listener.progress(new LocalSearchProgress(iteration, this.acceptedMoves, this.splits,
+						this.unifications, this.score, true));
+			}
+
+			return this.align;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof SALSAException) {
+				throw (SALSAException) e.getCause();
+			}
+			throw new SALSAException(e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// PRIVATE METHODS
+	/**
+	 * Index of the stripe that completely contains the GAP, -1 if the GAP is
+	 * not inside a single stripe
+	 * 
+	 * @param g
+	 * @param width
+	 * @param offset
+	 * @param firstColumns
+	 * @param lastColumns
+	 * @return
+	 */
+	private int stripeOf(final GAP g, final int width, final int offset, final int[] firstColumns,
+			final int[] lastColumns) {
+		int s = Math.max(0, Math.min(this.numberOfStripes - 1, (g.getBegin() - offset) / width));
+		if (g.getBegin() >= firstColumns[s] && g.getEnd() <= lastColumns[s]) {
+			return s;
+		}
+		return -1;
+	}
+
+	/**
+	 * Move to the right list (the one of its stripe, or the frozen one) every
+	 * GAP of the given list that is not inside it anymore. The failures of
+	 * all the GAPs are forgotten: the columns near them could have been
+	 * changed by another stripe, and the scheduler that stored them could be
+	 * the one of another stripe.
+	 * 
+	 * @param list
+	 * @param frozen
+	 * @param stripes
+	 * @param width
+	 * @param offset
+	 * @param firstColumns
+	 * @param lastColumns
+	 */
+	private void reassign(final GAPList list, final GAPList frozen, final List<GAPList> stripes,
+			final int width, final int offset, final int[] firstColumns, final int[] lastColumns) {
+		// Going backward, the GAP that takes the place of a removed one has
+		// already been checked
+		for (int i = list.size() - 1; i >= 0; i--) {
+			GAP g = list.get(i);
+			g.resetFailures();
+			int s = stripeOf(g, width, offset, firstColumns, lastColumns);
+			GAPList target;
+			if (s < 0 || belongsToOtherStripe(g.getPrevious(), s, width, offset, firstColumns, lastColumns)
+					|| belongsToOtherStripe(g.getNext(), s, width, offset, firstColumns, lastColumns)) {
+				target = frozen;
+			} else {
+				target = stripes.get(s);
+			}
+			if (target != list) {
+				list.remove(i);
+				target.add(g);
+			}
+		}
+	}
+
+	private boolean belongsToOtherStripe(final GAP g, final int stripe, final int width, final int offset,
+			final int[] firstColumns, final int[] lastColumns) {
+		if (g == null) {
+			return false;
+		}
+		int s = stripeOf(g, width, offset, firstColumns, lastColumns);
+		return s >= 0 && s != stripe;
+	}
+}
@@ -53,6 +53,14 @@ public final class SubstitutionMatrix {
 	private final Alphabet alphabet;
 
 	private final int[] matrix;
+
+	/**
+	 * Scores of all the pairs of characters, INDEL included: position
+	 * [a * (alphabetLength + 1) + b] contains score(a, b). The GEP is already
+	 * inside the row and the column of the INDEL, so that no check is
+	 * required to read a score.
+	 */
+	private final double[] scoreTable;
 	
 	private static final Map<EmbeddedScoringMatrix, SubstitutionMatrix> SUBSTITUTION_MATRIX_CACHE = new EnumMap<>(EmbeddedScoringMatrix.class);
 
@@ -76,6 +84,28 @@ public final class SubstitutionMatrix {
 		this.matrix = substitutionMatrix.matrix;
 		this.alphabet = substitutionMatrix.alphabet;
 		this.alphabetLength = this.alphabet.dimension();
+		this.scoreTable = createScoreTable(this.matrix, this.alphabetLength, this.GEP);
+	}
+	
+	/**
+	 * Create a substitution matrix from the scores already read (used to
+	 * reload an {@link AlignmentSnapshot})
+	 * 
+	 * @param alphabet
+	 * @param matrix
+	 *            alphabet x alphabet scores stored by rows
+	 * @param gep
+	 * @throws SALSAException
+	 */
+	SubstitutionMatrix(Alphabet alphabet, int[] matrix, double gep) throws SALSAException {
+		if (matrix.length != alphabet.dimension() * alphabet.dimension()) {
+			throw new SALSAException("Error: the substitution matrix does not match the alphabet");
+		}
+		this.GEP = gep;
+		this.matrix = matrix;
+		this.alphabet = alphabet;
+		this.alphabetLength = alphabet.dimension();
+		this.scoreTable = createScoreTable(this.matrix, this.alphabetLength, this.GEP);
 	}
 	
 	public SubstitutionMatrix(InputStream scoringMatrixStream, Alphabet expectedAlphabet, double gep)
@@ -125,6 +155,7 @@ public final class SubstitutionMatrix {
 				}
 			}
 		}			
+		this.scoreTable = createScoreTable(this.matrix, this.alphabetLength, this.GEP);
 	}
 	
 	// GET/SET
@@ -132,6 +163,25 @@ public final class SubstitutionMatrix {
 		return this.alphabet;
 	}
 
+	/**
+	 * GAP extension penalty
+	 * 
+	 * @return
+	 */
+	public final double getGEP() {
+		return this.GEP;
+	}
+
+	/**
+	 * The scores of the characters of the alphabet (INDEL excluded) stored by
+	 * rows: the returned array must not be modified.
+	 * 
+	 * @return
+	 */
+	final int[] getMatrix() {
+		return this.matrix;
+	}
+
 	/**
 	 * Calculate the score between two characters (converted in integers)
 	 * 
@@ -140,20 +190,43 @@ public final class SubstitutionMatrix {
 	 * @return
 	 */
 	public final double score(int a, int b) {
-		if (a == this.alphabet.INDEL()) {
-			if (b == this.alphabet.INDEL()) {
-				return 0;
-			} else {
-				return -GEP;
-			}
-		}
-		if (b == this.alphabet.INDEL()) {
-			return -GEP;
-		}
+		return this.scoreTable[a * (this.alphabetLength + 1) + b];
+	}
 
-		return matrix[a * alphabetLength + b];
+	/**
+	 * The scores of all the pairs of characters (INDEL included) as a
+	 * (dimension + 1) x (dimension + 1) matrix stored by rows. Used by the
+	 * methods that need to read many scores: the returned array must not be
+	 * modified.
+	 * 
+	 * @return
+	 */
+	public final double[] getScoreTable() {
+		return this.scoreTable;
 	}
 	
+	/**
+	 * The values of the identity score where the matrix chosen by
+	 * getEmbeddedSubstitutionMatrix changes, in increasing order
+	 * 
+	 * @param matrixSerie
+	 * @return
+	 * @throws SALSAException
+	 */
+	public static final double[] getIdentityThresholds(MatrixSerie matrixSerie) throws SALSAException {
+		switch (matrixSerie) {
+		case BLOSUM:
+			return new double[] { 0.3, 0.6, 0.8 };
+
+		case PAM:
+			return new double[] { 0.4, 0.6, 0.8 };
+
+		default:
+			//MatrixSerie is not BLOSUM and it is not PAM
+			throw new SALSAException("The " + matrixSerie + " isn't managed");
+		}
+	}
+
 	public static final EmbeddedScoringMatrix getEmbeddedSubstitutionMatrix(MatrixSerie matrixSerie, double pid) throws SALSAException, IOException {		
 		switch (matrixSerie) {
 		case BLOSUM:
@@ -231,4 +304,22 @@ public final class SubstitutionMatrix {
 
 		return cachedSubstitutionMatrix;
 	}
+
+	// PRIVATE METHODS
+	private static double[] createScoreTable(int[] matrix, int alphabetLength, double GEP) {
+		// The INDEL is the character after the last one of the alphabet
+		int dimension = alphabetLength + 1;
+		double[] scoreTable = new double[dimension * dimension];
+
+		for (int a = 0; a < alphabetLength; a++) {
+			for (int b = 0; b < alphabetLength; b++) {
+				scoreTable[a * dimension + b] = matrix[a * alphabetLength + b];
+			}
+			scoreTable[a * dimension + alphabetLength] = -GEP;
+			scoreTable[alphabetLength * dimension + a] = -GEP;
+		}
+		scoreTable[alphabetLength * dimension + alphabetLength] = 0;
+
+		return scoreTable;
+	}
 }
@@ -16,9 +16,15 @@
 package com.salsaw.msalsa.algorithm;
 
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.PushbackReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 
 import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
 
@@ -35,7 +41,8 @@ public final class Tree {
 	// CONSTRUCTOR
 	/**
 	 * The parameters are the name of the file containing the tree in the Newick
-	 * notation and the number of sequences
+	 * notation and the number of sequences. The file is mapped in memory and
+	 * read by a {@link NewickParser}.
 	 * 
 	 * @see <a
 	 *      href="spec.html#http://en.wikipedia.org/wiki/Newick_format">Newick</a>
@@ -48,15 +55,37 @@ public final class Tree {
 	 */
 	public Tree(final String fileName, int numberOfSequences)
 			throws FileNotFoundException, IOException, SALSAException {
-		this.insertedSequences = 0;
 		this.leaves = new Node[numberOfSequences];
 
-		try (PushbackReader buffer = new PushbackReader(
-				new FileReader(fileName))) {
-			this.root = createNode(buffer, null);
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName),
+				StandardOpenOption.READ)) {
+			parse(channel.map(MapMode.READ_ONLY, 0, channel.size()));
 		}
 	}
 
+	/**
+	 * The parameters are the tree in the Newick notation and the number of
+	 * sequences
+	 * 
+	 * @param newick
+	 * @param numberOfSequences
+	 * @throws SALSAException
+	 */
+	Tree(final ByteBuffer newick, int numberOfSequences)
+			throws SALSAException {
+		this.leaves = new Node[numberOfSequences];
+		parse(newick);
+	}
+
+	// GET / SET
+	final Node getRoot() {
+		return this.root;
+	}
+
+	final int getNumberOfLeaves() {
+		return this.insertedSequences;
+	}
+
 	// METHODS
 	/**
 	 * Re-root the tree
@@ -85,25 +114,27 @@ public final class Tree {
 	public final double generateWeights(String[] names, double[] weights)
 			throws SALSAException {
 		double weightsSum = 0.0f;
-		int index;
+
+		// Sequences' indexes in the alignment (the first one for equal names)
+		HashMap<String, Integer> indexes = new HashMap<>(
+				2 * this.insertedSequences);
+		for (int j = this.insertedSequences - 1; j >= 0; j--) {
+			indexes.put(names[j], j);
+		}
+
+		IdentityHashMap<Node, Double> leafWeights = leafWeights();
 
 		for (int i = 0; i < this.insertedSequences; i++) {
 
 			// Calculate sequence's index in the alignment
-			index = -1;
-			for (int j = 0; j < this.insertedSequences && index == -1; j++) {
-				if (names[j].equals(this.leaves[i].getName())) {
-					index = j;
-				}
-			}
-
-			if (index == -1) {
+			Integer index = indexes.get(this.leaves[i].getName());
+			if (index == null) {
 				throw new SALSAException(
 						"Error: the alignment and the tree have different sequences.");
 			}
 
 			// Calculate the weight of the i-th leaf
-			weights[index] = leafWeight(this.leaves[i]);
+			weights[index] = leafWeights.get(this.leaves[i]);
 			weightsSum += weights[index];
 		}
 
@@ -114,105 +145,46 @@ public final class Tree {
 		// TODO Report code from c
 	}
 
-	private char ReadNext(PushbackReader reader) throws IOException {
-		char c = (char) reader.read();
-
-		while ( c == ' ' ||
-				// Skip new line characters
-				c == '\n' || c == '\r') {
-			c = (char) reader.read();
-		}
-
-		return c;
+	// PRIVATE METHODS
+	private void parse(final ByteBuffer newick) throws SALSAException {
+		NewickParser parser = new NewickParser(newick);
+		this.root = parser.parse(this.leaves);
+		this.insertedSequences = parser.getNumberOfLeaves();
 	}
 
-	private final Node createNode(PushbackReader reader, Node parent)
-			throws IOException, SALSAException {
-		Node current = new Node("", null, null, parent, 0);
-		char c;
-
-		c = ReadNext(reader);
-		if (c != '(') {
-			// Leaf
-
-			// Example of leaf line: 2lef_A:0.40631,
-			// Read name
-			String name = "";
-			do {							
-				name += c;
-				c = (char) reader.read();
-			} while (c != ':');
-			current.setName(name);
-
-			ReadDistance(reader, current);
-
-			// next character should be a ',' or a ')'
-			leaves[insertedSequences] = current;
-			insertedSequences++;
-		} else {
-			// Internal node
-			current.setLeft(createNode(reader, current));
-
-			c = ReadNext(reader);
-
-			if (c == ',') {
-				current.setRight(createNode(reader, current));
-
-				c = ReadNext(reader);
-				if (c == ',') {
-					// It is the root and there are three sons
-					if (parent != null) {
-						throw new SALSAException(
-								"More than two sons for an internal node (not root).");
-					}
-
-					Node newNode = new Node("ARTIFICIAL", current, null, null,
-							0);
-					current.setParent(newNode);
-
-					newNode.setRight(createNode(reader, newNode));
-					current = newNode;
-				}
+	/**
+	 * The weight of a leaf is the sum of distance / descendant leaves of the
+	 * nodes on its path to the root. The sums are accumulated from the root
+	 * down, so the nodes shared by more paths are visited only once.
+	 * 
+	 * @return
+	 */
+	private IdentityHashMap<Node, Double> leafWeights() {
+		IdentityHashMap<Node, Double> leafWeights = new IdentityHashMap<>(
+				this.insertedSequences);
+		ArrayDeque<Node> nodes = new ArrayDeque<>();
+		ArrayDeque<Double> sums = new ArrayDeque<>();
+		nodes.push(this.root);
+		sums.push(0.0);
+
+		while (!nodes.isEmpty()) {
+			Node current = nodes.pop();
+			double weight = sums.pop() + current.getDistance()
+					/ current.getDescendentLeaves();
+
+			if (current.leaf()) {
+				leafWeights.put(current, weight);
 			}
-
-			c = ReadNext(reader);
-			if (c == ':') {
-				ReadDistance(reader, current);
-			} else {
-				// pushes the character back into the buffer
-				reader.unread((int) c);
+			if (current.getLeft() != null) {
+				nodes.push(current.getLeft());
+				sums.push(weight);
+			}
+			if (current.getRight() != null) {
+				nodes.push(current.getRight());
+				sums.push(weight);
 			}
 		}
 
-		return current;
-	}
-
-	private void ReadDistance(PushbackReader reader, Node current)
-			throws IOException {
-		// Read distance
-		String distanceValue = "";
-		char c = ReadNext(reader);
-		do {
-			distanceValue += c;
-			c = ReadNext(reader);
-		} while (c != ',' && c != ')');
-		current.setDistance(Float.valueOf(distanceValue));
-
-		// pushes the character back into the buffer
-		reader.unread((int) c);
-	}
-
-	private final double leafWeight(Node leaf) {
-		Node current = leaf;
-		double weight = 0.0f;
-
-		// Cycling until the root has been found (parent = null)
-		while (current != null) {
-			weight += current.getDistance() / current.getDescendentLeaves();
-
-			current = current.getParent();
-		}
-
-		return weight;
+		return leafWeights;
 	}
 }
@@ -0,0 +1,44 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+/**
+ * Every GAP and both directions have the same probability to be chosen.
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+final class UniformMoveScheduler implements MoveScheduler {
+	@Override
+	public GAP nextGAP(final GAPList gaps, final FastRandom random) {
+		return gaps.sample(random);
+	}
+
+	@Override
+	public boolean nextDirection(final GAP g, final FastRandom random) {
+		return random.nextBoolean();
+	}
+
+	@Override
+	public void failed(final GAP g, final boolean left, final boolean split) {
+		// The choice does not depend on the previous results
+	}
+
+	@Override
+	public void changed(final int firstColumn, final int lastColumn) {
+		// The choice does not depend on the previous results
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm.enums;
+
+/**
+ * The way used by the alignment to calculate the improvement obtained by
+ * changing a cell.
+ * 
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public enum DeltaEngine {
+	/**
+	 * the improvement is calculated reading the counters of the column for
+	 * every character of the alphabet
+	 */
+	COUNTERS,
+	/**
+	 * for every column the score of each character against the whole column
+	 * is kept updated: the improvement is calculated with a constant number
+	 * of accesses, but every change requires to update the column profile
+	 */
+	COLUMN_PROFILE;
+	
+    public static final DeltaEngine fromString(String engine) {
+ 
+        for(DeltaEngine deltaEngine : DeltaEngine.values()) {
+            if(deltaEngine.toString().equalsIgnoreCase(engine)) {
+                return deltaEngine;
+            }
+        }
+ 
+        return null;
+    }
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm.enums;
+
+/**
+ * The way used by the local search to choose the GAP to move and the
+ * direction of the movement.
+ * 
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public enum MoveSelection {
+	/**
+	 * every GAP and both directions have the same probability to be chosen
+	 */
+	UNIFORM,
+	/**
+	 * a GAP whose movement failed is not chosen again in the same direction
+	 * until one of the columns it could reach changes
+	 */
+	DIRTY_COLUMNS;
+
+	public static final MoveSelection fromString(String selection) {
+		for (MoveSelection moveSelection : MoveSelection.values()) {
+			if (moveSelection.toString().equalsIgnoreCase(selection)) {
+				return moveSelection;
+			}
+		}
+
+		return null;
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class AlignmentSnapshotTest extends TestCase {
+	private TestAlignmentFiles files;
+	private File snapshotFile;
+
+	@Override
+	protected void setUp() throws IOException {
+		this.files = new TestAlignmentFiles(16, 120, 23);
+		this.snapshotFile = File.createTempFile("msalsa", ".snapshot");
+	}
+
+	@Override
+	protected void tearDown() {
+		this.files.delete();
+		this.snapshotFile.delete();
+	}
+
+	/**
+	 * A search resumed from a snapshot taken in the middle of the execution
+	 * ends exactly like the uninterrupted one
+	 */
+	public void testResume() throws IOException, SALSAException {
+		Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		final Alignment interrupted = new Alignment(alignment);
+		final LocalSearch interruptedSearch = new LocalSearch(interrupted, 30, 500, 0.5, 19);
+		interruptedSearch.setBlockMoveProbability(0.2);
+		interruptedSearch.setListener(new LocalSearchListener() {
+			@Override
+			public void progress(LocalSearchProgress progress) {
+				if (progress.getIterations() == 200) {
+					try {
+						AlignmentSnapshot.save(interrupted, interruptedSearch.getState(), snapshotFile.getPath());
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}
+		}, 200);
+		interruptedSearch.execute();
+
+		AlignmentSnapshot snapshot = AlignmentSnapshot.load(this.snapshotFile.getPath());
+		assertEquals(200, snapshot.getSearchState().getIterations());
+		LocalSearch resumedSearch = new LocalSearch(snapshot.getAlignment(), 30, 500, 0.5,
+				snapshot.getSearchState());
+		resumedSearch.setBlockMoveProbability(0.2);
+		Alignment resumed = resumedSearch.execute();
+
+		assertEquals(interruptedSearch.getIterations(), resumedSearch.getIterations());
+		assertTrue(snapshot.getSearchState().getBlockMoves() > 0);
+		assertEquals(interruptedSearch.getBlockMoves(), resumedSearch.getBlockMoves());
+		assertEquals(interrupted.WSP(), resumed.WSP(), 1e-6);
+		assertEquals(resumed.WSP(), resumedSearch.getScore(), 1e-6);
+		assertTrue(Arrays.equals(TestAlignmentFiles.toFasta(interrupted), TestAlignmentFiles.toFasta(resumed)));
+	}
+
+	/**
+	 * A search interrupted during the simulated annealing, when the current
+	 * alignment is worse than the best one, keeps the temperature and the
+	 * best alignment: it ends like the uninterrupted one
+	 */
+	public void testResumeAnnealing() throws IOException, SALSAException {
+		Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		final Alignment interrupted = new Alignment(alignment);
+		final LocalSearch interruptedSearch = new LocalSearch(interrupted, 30, 500, 0.1, 23);
+		interruptedSearch.setAnnealing(5000);
+		final LocalSearchState[] worse = new LocalSearchState[1];
+		interruptedSearch.setListener(new LocalSearchListener() {
+			@Override
+			public void progress(LocalSearchProgress progress) {
+				LocalSearchState state = interruptedSearch.getState();
+				if (worse[0] == null && state.getBestMatrix() != null && progress.getIterations() < 5000) {
+					worse[0] = state;
+					try {
+						AlignmentSnapshot.save(interrupted, state, snapshotFile.getPath());
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			}
+		}, 100);
+		interruptedSearch.execute();
+		assertNotNull(worse[0]);
+		assertTrue(worse[0].getTemperature() > 0);
+
+		AlignmentSnapshot snapshot = AlignmentSnapshot.load(this.snapshotFile.getPath());
+		LocalSearchState state = snapshot.getSearchState();
+		assertEquals(worse[0].getTemperature(), state.getTemperature());
+		assertEquals(worse[0].getBestImprovement(), state.getBestImprovement());
+		assertTrue(state.getBestImprovement() > state.getImprovement());
+		assertTrue(Arrays.equals(worse[0].getBestMatrix(), state.getBestMatrix()));
+		LocalSearch resumedSearch = new LocalSearch(snapshot.getAlignment(), 30, 500, 0.1, state);
+		resumedSearch.setAnnealing(5000);
+		Alignment resumed = resumedSearch.execute();
+
+		assertEquals(interruptedSearch.getIterations(), resumedSearch.getIterations());
+		assertEquals(resumed.WSP(), resumedSearch.getScore(), 1e-6);
+		assertTrue(Arrays.equals(TestAlignmentFiles.toFasta(interrupted), TestAlignmentFiles.toFasta(resumed)));
+	}
+
+	/**
+	 * The checkpoints written during a search allow to resume it with the same
+	 * result of the uninterrupted one
+	 */
+	public void testCheckpoint() throws IOException, SALSAException {
+		Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		this.snapshotFile.delete();
+		LocalSearch localSearch = new LocalSearch(alignment, 30, 2000, 0.5, 29);
+		localSearch.setCheckpoint(this.snapshotFile.getPath(), 1);
+		localSearch.execute();
+		assertTrue(this.snapshotFile.exists());
+
+		AlignmentSnapshot snapshot = AlignmentSnapshot.load(this.snapshotFile.getPath());
+		assertTrue(snapshot.getSearchState().getIterations() % LocalSearch.TIME_CHECK_INTERVAL == 0);
+		LocalSearch resumedSearch = new LocalSearch(snapshot.getAlignment(), 30, 2000, 0.5,
+				snapshot.getSearchState());
+		Alignment resumed = resumedSearch.execute();
+
+		assertEquals(localSearch.getIterations(), resumedSearch.getIterations());
+		assertTrue(Arrays.equals(TestAlignmentFiles.toFasta(alignment), TestAlignmentFiles.toFasta(resumed)));
+	}
+
+	/**
+	 * A file that is not a snapshot is rejected
+	 */
+	public void testInvalidFile() throws IOException {
+		try {
+			AlignmentSnapshot.load(this.files.getAlignmentPath());
+			fail();
+		} catch (SALSAException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class AlignmentTest extends TestCase {
+	private TestAlignmentFiles files;
+
+	@Override
+	protected void setUp() throws IOException {
+		// A length multiple of the FASTA line length
+		this.files = new TestAlignmentFiles(8, 120, 17);
+	}
+
+	@Override
+	protected void tearDown() {
+		this.files.delete();
+	}
+
+	/**
+	 * The WSP-Score calculated on the counters is the same of the classic
+	 * one, with both the strategies for the terminal GAPs and also after the
+	 * counters have been updated by a local search
+	 */
+	public void testWSPMatchesPairwise() throws IOException, SALSAException {
+		for (TerminalGAPsStrategy terminal : TerminalGAPsStrategy.values()) {
+			Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+					EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, terminal);
+			assertEquals(alignment.pairwiseWSP(), alignment.WSP(), 1e-6);
+
+			new LocalSearch(alignment, 30, 500, 0.1, 5).execute();
+			assertEquals(alignment.pairwiseWSP(), alignment.WSP(), 1e-6);
+		}
+	}
+
+	/**
+	 * The saved alignment, to a file or to a stream, is read again without
+	 * changes
+	 */
+	public void testSave() throws IOException, SALSAException {
+		Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		File savedFile = File.createTempFile("msalsa", ".fasta");
+		try {
+			alignment.save(savedFile.getPath());
+			ByteArrayOutputStream stream = new ByteArrayOutputStream();
+			alignment.save(stream);
+			assertTrue(Arrays.equals(Files.readAllBytes(savedFile.toPath()), stream.toByteArray()));
+
+			FastaAlignmentReader original = new FastaAlignmentReader(this.files.getAlignmentPath());
+			FastaAlignmentReader saved = new FastaAlignmentReader(savedFile.getPath());
+			assertTrue(Arrays.equals(original.getSequencesHeaders(), saved.getSequencesHeaders()));
+			assertTrue(Arrays.equals(original.getResidues(), saved.getResidues()));
+		} finally {
+			savedFile.delete();
+		}
+	}
+
+	/**
+	 * The alignment saved in a file with the gzip extension is compressed and
+	 * read again without changes
+	 */
+	public void testSaveCompressed() throws IOException, SALSAException {
+		Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		File savedFile = File.createTempFile("msalsa", Constants.FASTA_FILE_EXSTENSION + Constants.GZIP_FILE_EXSTENSION);
+		try {
+			alignment.save(savedFile.getPath());
+			assertTrue(CompressedFiles.isCompressed(savedFile.getPath()));
+
+			Alignment saved = new Alignment(savedFile.getPath(), this.files.getTreePath(),
+					EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+			assertEquals(alignment.WSP(), saved.WSP(), 1e-6);
+			assertEquals(new FastaFileReader(this.files.getAlignmentPath()).getSequences(),
+					new FastaFileReader(savedFile.getPath()).getSequences());
+		} finally {
+			savedFile.delete();
+		}
+	}
+
+	/**
+	 * A compressed file is decompressed in a new file, without touching the
+	 * plain file with the same name
+	 */
+	public void testDecompressToTemporaryFile() throws IOException, SALSAException {
+		Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		File compressedFile = File.createTempFile("msalsa", Constants.FASTA_FILE_EXSTENSION + Constants.GZIP_FILE_EXSTENSION);
+		File plainFile = new File(CompressedFiles.removeCompressedExtension(compressedFile.getPath()));
+		String decompressedFile = null;
+		try {
+			alignment.save(compressedFile.getPath());
+			byte[] userContent = "user file".getBytes(StandardCharsets.US_ASCII);
+			Files.write(plainFile.toPath(), userContent);
+
+			decompressedFile = CompressedFiles.decompressToTemporaryFile(compressedFile.getPath(),
+					Constants.FASTA_FILE_EXSTENSION);
+			assertFalse(new File(decompressedFile).equals(plainFile.getAbsoluteFile()));
+			assertTrue(Arrays.equals(TestAlignmentFiles.toFasta(alignment),
+					Files.readAllBytes(new File(decompressedFile).toPath())));
+			assertTrue(Arrays.equals(userContent, Files.readAllBytes(plainFile.toPath())));
+		} finally {
+			compressedFile.delete();
+			plainFile.delete();
+			if (decompressedFile != null) {
+				new File(decompressedFile).delete();
+			}
+		}
+	}
+}
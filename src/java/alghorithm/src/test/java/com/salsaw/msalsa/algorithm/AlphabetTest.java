@@ -0,0 +1,48 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.nio.charset.StandardCharsets;
+
+import com.salsaw.msalsa.algorithm.enums.AlphabetType;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class AlphabetTest extends TestCase {
+	public void testEncodeAndDecode() throws SALSAException {
+		Alphabet alphabet = new Alphabet(AlphabetType.PROTEINS);
+		byte[] residues = "ARn-dV".getBytes(StandardCharsets.US_ASCII);
+		byte[] codes = new byte[residues.length];
+
+		alphabet.encode(residues, codes);
+		assertEquals(alphabet.charToInt('N'), codes[2]);
+		assertEquals(alphabet.INDEL(), codes[3]);
+
+		alphabet.decode(codes, codes);
+		assertEquals("ARN-DV", new String(codes, StandardCharsets.US_ASCII));
+	}
+
+	public void testUnknownCharacter() {
+		Alphabet alphabet = new Alphabet(new char[] { 'A', 'C', 'G', 'T' });
+		try {
+			alphabet.encode("ACGU".getBytes(StandardCharsets.US_ASCII), new byte[4]);
+			fail();
+		} catch (SALSAException e) {
+			// Expected
+		}
+	}
+}
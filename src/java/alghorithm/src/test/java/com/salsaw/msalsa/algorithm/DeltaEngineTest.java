@@ -0,0 +1,58 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.IOException;
+
+import com.salsaw.msalsa.algorithm.enums.DeltaEngine;
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+/**
+ * The engines used to calculate the improvements must lead the local search
+ * to the same alignment.
+ */
+public class DeltaEngineTest extends TestCase {
+	private TestAlignmentFiles files;
+
+	@Override
+	protected void setUp() throws IOException {
+		this.files = new TestAlignmentFiles(16, 120, 3);
+	}
+
+	@Override
+	protected void tearDown() {
+		this.files.delete();
+	}
+
+	public void testColumnProfileFindsSameAlignment() throws IOException, SALSAException {
+		Alignment counters = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		Alignment profile = new Alignment(counters);
+		profile.setDeltaEngine(DeltaEngine.COLUMN_PROFILE);
+		double initialScore = counters.WSP();
+
+		new LocalSearch(counters, 30, 500, 0.1, 7).execute();
+		new LocalSearch(profile, 30, 500, 0.1, 7).execute();
+
+		assertTrue(counters.WSP() > initialScore);
+		assertEquals(counters.WSP(), profile.WSP(), 1e-6);
+		assertEquals(counters.getGAPS().size(), profile.getGAPS().size());
+	}
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.MatrixSerie;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class DistanceMatrixTest extends TestCase {
+	/**
+	 * Rows split on more lines, Windows line endings and values in every
+	 * notation are read, and only the pairs above the diagonal are averaged
+	 */
+	public void testRead() throws IOException, SALSAException {
+		DistanceMatrix matrix = read("3\r\n" + "seq0 0.000000 0.250000\r\n   0.5\r\n" + "seq1 0.250000 0 2.5e-1\r\n"
+				+ "seq2\t0.500000 0.250000 0.000000\r\n", true);
+
+		assertEquals(3, matrix.getNumberOfSequences());
+		assertEquals("seq2", matrix.getNames()[2]);
+		assertEquals(1 - (0.25 + 0.5 + 0.25) / 3, matrix.getAverageIdentity(), 1e-9);
+		assertEquals(0.5, matrix.getDistance(2, 0), 1e-6);
+		assertEquals(0.25, matrix.getDistance(1, 2), 1e-6);
+		assertEquals(0.0, matrix.getDistance(1, 1), 1e-6);
+		assertEquals(EmbeddedScoringMatrix.BLOSUM62,
+				SubstitutionMatrix.getEmbeddedSubstitutionMatrix(MatrixSerie.BLOSUM, matrix.getAverageIdentity()));
+	}
+
+	/**
+	 * A matrix with missing or invalid values is refused
+	 */
+	public void testInvalid() throws IOException {
+		for (String content : new String[] { "2\nseq0 0 0.3\nseq1 0.3", "2\nseq0 0 0.3\nseq1 0.3 zero" }) {
+			try {
+				read(content, false);
+				fail();
+			} catch (SALSAException e) {
+				// Expected
+			}
+		}
+	}
+
+	private static DistanceMatrix read(final String content, final boolean storeDistances)
+			throws IOException, SALSAException {
+		return new DistanceMatrix(new ByteArrayInputStream(content.getBytes(StandardCharsets.US_ASCII)), storeDistances);
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class FastaAlignmentReaderTest extends TestCase {
+	private File file;
+
+	@Override
+	protected void setUp() throws IOException {
+		this.file = File.createTempFile("msalsa", ".fasta");
+	}
+
+	@Override
+	protected void tearDown() {
+		this.file.delete();
+	}
+
+	public void testReadAlignment() throws IOException, SALSAException {
+		write("; comment\r\n>seq0 first\r\nAC-d\r\nef\r\n\r\n>seq1\r\n  acdE-F\r\n>seq2\nACDEFG");
+		FastaAlignmentReader reader = new FastaAlignmentReader(this.file.getPath());
+
+		assertEquals(3, reader.getNumberOfSequences());
+		assertEquals(6, reader.getLength());
+		assertEquals("seq0 first", reader.getSequencesHeaders()[0]);
+		assertEquals("seq2", reader.getSequencesHeaders()[2]);
+		assertEquals("AC-defacdE-FACDEFG", new String(reader.getResidues(), StandardCharsets.US_ASCII));
+	}
+
+	public void testSequencesWithDifferentLengths() throws IOException {
+		write(">seq0\nACDE\n>seq1\nACD\n");
+		try {
+			new FastaAlignmentReader(this.file.getPath());
+			fail();
+		} catch (SALSAException e) {
+			// Expected
+		}
+	}
+
+	private void write(final String content) throws IOException {
+		Files.write(this.file.toPath(), content.getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,57 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class GAPListTest extends TestCase {
+	public void testSwapRemove() throws SALSAException {
+		GAPList list = new GAPList(1);
+		GAP[] gaps = new GAP[4];
+		for (int i = 0; i < gaps.length; i++) {
+			gaps[i] = new GAP(i, 0, 10, null, null);
+			list.add(gaps[i]);
+		}
+
+		assertTrue(list.remove(gaps[1]));
+		assertEquals(3, list.size());
+		assertSame(gaps[3], list.get(1));
+		assertFalse(list.contains(gaps[1]));
+		assertFalse(list.remove(gaps[1]));
+
+		// The positions are still right after the swap
+		assertTrue(list.remove(gaps[3]));
+		assertSame(gaps[2], list.get(1));
+		assertEquals(1, list.indexOf(gaps[2]));
+	}
+
+	public void testMoveToAnotherList() throws SALSAException {
+		GAPList first = new GAPList();
+		GAPList second = new GAPList();
+		GAP g = new GAP(0, 0, 10, null, null);
+		first.add(new GAP(1, 0, 10, null, null));
+		first.add(g);
+
+		second.add(g);
+		first.clear();
+		assertTrue(second.contains(g));
+		assertFalse(first.contains(g));
+		assertTrue(second.remove(g));
+		assertTrue(second.isEmpty());
+	}
+}
@@ -0,0 +1,45 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class GAPPoolTest extends TestCase {
+	/**
+	 * A GAP reused by a split starts without failed movements, so that the
+	 * scheduler of the dirty columns tries it
+	 */
+	public void testSplitGAPStartsDirty() throws SALSAException {
+		GAPPool pool = new GAPPool(10);
+		GAP released = new GAP(3, 7, 10, null, null);
+		released.setFailure(true, 42);
+		released.setFailure(false, 43);
+		pool.release(released);
+
+		GAP g = new GAP(0, 2, 10, null, null, 4);
+		GAP split = g.split(3, false, pool);
+
+		assertSame(released, split);
+		assertEquals(0, pool.size());
+		assertEquals(0, split.getRow());
+		assertEquals(4, split.getBegin());
+		assertEquals(5, split.getEnd());
+		assertEquals(-1, split.getFailure(true));
+		assertEquals(-1, split.getFailure(false));
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import com.salsaw.msalsa.algorithm.enums.MatrixSerie;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class IdentityScoreTest extends TestCase {
+	/**
+	 * The identical residues are counted ignoring the case and divided by the
+	 * length of the shorter sequence, whatever the order of the rows
+	 */
+	public void testIdentity() {
+		byte[] residues = "ACDEFG-H-Kacdxx----k".getBytes(StandardCharsets.US_ASCII);
+		IdentityScore score = new IdentityScore(residues, 2, 10);
+
+		assertEquals(4 / 6.0, score.identity(0, 1), 1e-9);
+		assertEquals(4 / 6.0, score.identity(1, 0), 1e-9);
+		assertEquals(1.0, score.identity(0, 0), 1e-9);
+	}
+
+	/**
+	 * The estimate compares much less pairs than the alignment contains and
+	 * chooses the same matrix of the exact average, which is inside the
+	 * confidence interval
+	 */
+	public void testEstimate() throws SALSAException, IOException {
+		int numberOfSequences = 500;
+		int length = 40;
+		Random random = new Random(3);
+		byte[] residues = new byte[numberOfSequences * length];
+		for (int i = 0; i < residues.length; i++) {
+			// Average identity close to 0.4
+			residues[i] = (byte) (random.nextInt(5) < 2 ? 'A' : "CDEFGHIKLM-".charAt(random.nextInt(11)));
+		}
+		IdentityScore score = new IdentityScore(residues, numberOfSequences, length);
+
+		double sum = 0;
+		for (int i = 0; i < numberOfSequences - 1; i++) {
+			for (int j = i + 1; j < numberOfSequences; j++) {
+				sum += score.identity(i, j);
+			}
+		}
+		double exact = sum / (numberOfSequences * (numberOfSequences - 1) / 2);
+
+		for (MatrixSerie matrixSerie : new MatrixSerie[] { MatrixSerie.BLOSUM, MatrixSerie.PAM }) {
+			IdentityEstimate estimate = score.estimate(matrixSerie);
+
+			assertFalse(estimate.isExact());
+			assertTrue(estimate.getPairs() < IdentityScore.MAX_PAIRS);
+			assertTrue(estimate.getLowerBound() <= exact && exact <= estimate.getUpperBound());
+			assertEquals(SubstitutionMatrix.getEmbeddedSubstitutionMatrix(matrixSerie, exact), estimate.getMatrix());
+			assertEquals(estimate.getIdentity(), score.estimate(matrixSerie).getIdentity());
+		}
+	}
+
+	/**
+	 * An alignment can choose its substitution matrix from a serie
+	 */
+	public void testMatrixSerie() throws IOException, SALSAException {
+		TestAlignmentFiles files = new TestAlignmentFiles(12, 80, 23);
+		try {
+			Alignment alignment = new Alignment(files.getAlignmentPath(), files.getTreePath(), MatrixSerie.BLOSUM,
+					0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+			FastaAlignmentReader reader = new FastaAlignmentReader(files.getAlignmentPath());
+			IdentityScore score = new IdentityScore(reader.getResidues(), 12, 80);
+
+			assertEquals((1 - score.identity(2, 5)) * 100, alignment.getPairwiseDistance(2, 5), 1e-4);
+			assertTrue(alignment.getIdentityEstimate().isExact());
+			assertEquals(alignment.getIdentityEstimate().getMatrix(), score.estimate(MatrixSerie.BLOSUM).getMatrix());
+		} finally {
+			files.delete();
+		}
+	}
+}
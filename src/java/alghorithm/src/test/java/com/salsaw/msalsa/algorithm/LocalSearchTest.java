@@ -0,0 +1,276 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.salsaw.msalsa.algorithm.enums.DeltaEngine;
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.MoveSelection;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class LocalSearchTest extends TestCase {
+	private TestAlignmentFiles files;
+
+	@Override
+	protected void setUp() throws IOException {
+		this.files = new TestAlignmentFiles(16, 120, 5);
+	}
+
+	@Override
+	protected void tearDown() {
+		this.files.delete();
+	}
+
+	/**
+	 * The score kept updated during the search must be the WSP-Score of the
+	 * final alignment, with both the strategies for the terminal GAPs and
+	 * every way of choosing the movements
+	 */
+	public void testRunningScoreIsWSP() throws IOException, SALSAException {
+		for (TerminalGAPsStrategy terminal : TerminalGAPsStrategy.values()) {
+			for (MoveSelection moveSelection : MoveSelection.values()) {
+				Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+						EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, terminal);
+				double initialScore = alignment.WSP();
+				// A high probability of split to test also the splits
+				LocalSearch localSearch = new LocalSearch(alignment, 30, 500, 0.5, 11);
+				localSearch.setMoveSelection(moveSelection);
+				localSearch.execute();
+
+				assertEquals(alignment.WSP(), localSearch.getScore(), 1e-6);
+				assertTrue(localSearch.getScore() > initialScore);
+			}
+		}
+	}
+
+	/**
+	 * The same input and the same seed give the same result and the same
+	 * number of iterations, with a single search, with more searches and
+	 * with stripes searched in parallel
+	 */
+	public void testSameSeedSameResult() throws IOException, SALSAException, InterruptedException {
+		byte[][] results = new byte[2][];
+		int[] iterations = new int[2];
+		double[] scores = new double[2];
+		for (int i = 0; i < 2; i++) {
+			Alignment alignment = createAlignment();
+			LocalSearch search = new LocalSearch(alignment, 30, 500, 0.5, 43);
+			search.setBlockMoveProbability(0.1);
+			search.execute();
+			results[i] = TestAlignmentFiles.toFasta(alignment);
+			iterations[i] = search.getIterations();
+			scores[i] = search.getScore();
+		}
+		assertSameResults(results, iterations, scores);
+
+		int[][] runsIterations = new int[2][];
+		double[][] runsScores = new double[2][];
+		for (int i = 0; i < 2; i++) {
+			MultiStartLocalSearch search = new MultiStartLocalSearch(createAlignment(), 30, 500, 0.5, 3, 2, 43);
+			results[i] = TestAlignmentFiles.toFasta(search.execute());
+			runsIterations[i] = search.getIterations();
+			runsScores[i] = search.getScores();
+		}
+		assertTrue(Arrays.equals(runsIterations[0], runsIterations[1]));
+		assertTrue(Arrays.equals(runsScores[0], runsScores[1]));
+		assertTrue(Arrays.equals(results[0], results[1]));
+
+		for (int i = 0; i < 2; i++) {
+			Alignment alignment = createAlignment();
+			StripedLocalSearch search = new StripedLocalSearch(alignment, 30, 2000, 0.5, 3, 3, 43);
+			search.execute();
+			results[i] = TestAlignmentFiles.toFasta(alignment);
+			iterations[i] = search.getIterations();
+			scores[i] = search.getScore();
+		}
+		assertSameResults(results, iterations, scores);
+	}
+
+	/**
+	 * A high minimum improvement rate stops the search at the end of the
+	 * first window of minIterations iterations, even if the last improvement
+	 * is more recent
+	 */
+	public void testMinImprovementRate() throws IOException, SALSAException {
+		LocalSearch search = new LocalSearch(createAlignment(), 30, 500, 0.1, 47);
+		search.execute();
+		assertTrue(search.getIterations() > 1000);
+
+		Alignment alignment = createAlignment();
+		LocalSearch stoppedSearch = new LocalSearch(alignment, 30, 500, 0.1, 47);
+		stoppedSearch.setMinImprovementRate(1e9);
+		stoppedSearch.execute();
+		assertEquals(500, stoppedSearch.getIterations());
+		assertEquals(alignment.WSP(), stoppedSearch.getScore(), 1e-6);
+
+		// Without a window the rate is not checked, also after the annealing:
+		// the search ends with the annealing
+		Alignment annealingAlignment = createAlignment();
+		LocalSearch annealingSearch = new LocalSearch(annealingAlignment, 30, 0, 0.1, 47);
+		annealingSearch.setMinImprovementRate(1e9);
+		annealingSearch.setAnnealing(1000);
+		annealingSearch.execute();
+		assertEquals(1000, annealingSearch.getIterations());
+		assertEquals(annealingAlignment.WSP(), annealingSearch.getScore(), 1e-6);
+	}
+
+	/**
+	 * The stripes searched in parallel keep the score exact with every way
+	 * of choosing the movements: it is the WSP-Score of the final alignment,
+	 * and GAPs and counters are the same of an alignment read again from the
+	 * saved output
+	 */
+	public void testStripesKeepDeltaExact() throws IOException, SALSAException, InterruptedException {
+		File output = File.createTempFile("msalsa", ".fasta");
+		try {
+			for (int stripes = 2; stripes <= 4; stripes++) {
+				for (MoveSelection moveSelection : MoveSelection.values()) {
+					Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+							EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+					double initialScore = alignment.WSP();
+					StripedLocalSearch search = new StripedLocalSearch(alignment, 30, 2000, 0.5, stripes, stripes, 41);
+					search.setMoveSelection(moveSelection);
+					search.execute();
+
+					assertEquals(stripes, search.getNumberOfStripes());
+					assertEquals(alignment.WSP(), search.getScore(), 1e-6);
+					assertTrue(search.getScore() > initialScore);
+
+					alignment.save(output.getPath());
+					Alignment saved = new Alignment(output.getPath(), this.files.getTreePath(),
+							EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+					assertEquals(toSet(saved.getGAPS()), toSet(alignment.getGAPS()));
+					double[] counters = alignment.getCountersMatrix();
+					double[] savedCounters = saved.getCountersMatrix();
+					assertEquals(savedCounters.length, counters.length);
+					for (int i = 0; i < counters.length; i++) {
+						assertEquals(savedCounters[i], counters[i], 1e-9);
+					}
+				}
+			}
+		} finally {
+			output.delete();
+		}
+	}
+
+	/**
+	 * A new way of choosing the movements does not trust the failures stored
+	 * inside the GAPs by the previous one
+	 */
+	public void testMoveSelectionForgetsFailures() throws IOException, SALSAException {
+		Alignment alignment = createAlignment();
+		LocalSearch localSearch = new LocalSearch(alignment, 30, 500, 0.1, 53);
+		localSearch.setMoveSelection(MoveSelection.DIRTY_COLUMNS);
+		localSearch.execute();
+		assertTrue(countFailures(alignment.getGAPS()) > 0);
+
+		localSearch.setMoveSelection(MoveSelection.DIRTY_COLUMNS);
+		assertEquals(0, countFailures(alignment.getGAPS()));
+	}
+
+	/**
+	 * The simulated annealing accepts worse alignments, but it returns the
+	 * best one found, both at the end of the annealing and when it is
+	 * stopped by the time limit
+	 */
+	public void testAnnealing() throws IOException, SALSAException {
+		for (int annealingIterations : new int[] { 20000, 1000000000 }) {
+			Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+					EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+			double initialScore = alignment.WSP();
+			LocalSearch localSearch = new LocalSearch(alignment, 30, 500, 0.1, 17);
+			localSearch.setAnnealing(annealingIterations);
+			localSearch.setTimeLimit(200);
+			localSearch.execute();
+
+			assertEquals(alignment.WSP(), localSearch.getScore(), 1e-6);
+			assertTrue(localSearch.getScore() > initialScore);
+		}
+	}
+
+	/**
+	 * The movements of the blocks of GAPs are accepted and the improvements
+	 * they report are exact, with both the delta engines
+	 */
+	public void testBlockMove() throws IOException, SALSAException {
+		for (DeltaEngine deltaEngine : DeltaEngine.values()) {
+			Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+					EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+			alignment.setDeltaEngine(deltaEngine);
+			double initialScore = alignment.WSP();
+			LocalSearch localSearch = new LocalSearch(alignment, 30, 500, 0.1, 19);
+			localSearch.setBlockMoveProbability(0.5);
+			localSearch.execute();
+
+			assertTrue(localSearch.getBlockMoves() > 0);
+			assertEquals(alignment.WSP(), localSearch.getScore(), 1e-6);
+			assertTrue(localSearch.getScore() > initialScore);
+		}
+	}
+
+	/**
+	 * A search that would never end alone is stopped by the time limit and
+	 * returns a consistent alignment
+	 */
+	public void testTimeLimit() throws IOException, SALSAException {
+		Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		LocalSearch localSearch = new LocalSearch(alignment, 30, 1000000000, 0.1, 13);
+		localSearch.setTimeLimit(50);
+		localSearch.execute();
+
+		assertTrue(localSearch.isTimeLimitReached());
+		assertEquals(alignment.WSP(), localSearch.getScore(), 1e-6);
+	}
+
+	private Alignment createAlignment() throws IOException, SALSAException {
+		return new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(), EmbeddedScoringMatrix.BLOSUM62,
+				0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+	}
+
+	private static int countFailures(final GAPList gaps) {
+		int count = 0;
+		for (GAP g : gaps) {
+			if (g.getFailure(true) >= 0 || g.getFailure(false) >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static void assertSameResults(final byte[][] results, final int[] iterations, final double[] scores) {
+		assertEquals(iterations[0], iterations[1]);
+		assertEquals(scores[0], scores[1]);
+		assertTrue(Arrays.equals(results[0], results[1]));
+	}
+
+	private static Set<String> toSet(final GAPList gaps) {
+		Set<String> set = new HashSet<>();
+		for (GAP g : gaps) {
+			set.add(g.getRow() + ":" + g.getBegin() + "-" + g.getEnd());
+		}
+		assertEquals(gaps.size(), set.size());
+		return set;
+	}
+}
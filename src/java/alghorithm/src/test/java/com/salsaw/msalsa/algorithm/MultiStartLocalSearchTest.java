@@ -0,0 +1,65 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class MultiStartLocalSearchTest extends TestCase {
+	private TestAlignmentFiles files;
+
+	@Override
+	protected void setUp() throws IOException {
+		this.files = new TestAlignmentFiles(16, 120, 31);
+	}
+
+	@Override
+	protected void tearDown() {
+		this.files.delete();
+	}
+
+	/**
+	 * The returned alignment is the best one of all the searches, and the
+	 * input alignment is not modified by them
+	 */
+	public void testBestRun() throws IOException, SALSAException, InterruptedException {
+		Alignment alignment = new Alignment(this.files.getAlignmentPath(), this.files.getTreePath(),
+				EmbeddedScoringMatrix.BLOSUM62, 0.2, 10, TerminalGAPsStrategy.ONLY_GEP);
+		double initialScore = alignment.WSP();
+		byte[] initialAlignment = TestAlignmentFiles.toFasta(alignment);
+
+		MultiStartLocalSearch search = new MultiStartLocalSearch(alignment, 30, 500, 0.5, 4, 2, 37);
+		Alignment best = search.execute();
+
+		double maxScore = Double.NEGATIVE_INFINITY;
+		for (double score : search.getScores()) {
+			maxScore = Math.max(maxScore, score);
+		}
+		assertEquals(maxScore, best.WSP(), 1e-6);
+		assertEquals(maxScore, search.getScores()[search.getBestRun()]);
+		assertTrue(maxScore > initialScore);
+
+		assertNotSame(alignment, best);
+		assertEquals(initialScore, alignment.WSP());
+		assertTrue(Arrays.equals(initialAlignment, TestAlignmentFiles.toFasta(alignment)));
+	}
+}
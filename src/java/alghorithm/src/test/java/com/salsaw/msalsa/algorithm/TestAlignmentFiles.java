@@ -0,0 +1,84 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Random;
+
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Small random alignment and guide tree written in temporary files, used as
+ * input by the tests.
+ */
+final class TestAlignmentFiles {
+	private static final String RESIDUES = "ARNDCQEGHILKMFPSTWYV";
+
+	private final File alignmentFile;
+	private final File treeFile;
+
+	TestAlignmentFiles(final int numberOfSequences, final int length, final long seed) throws IOException {
+		Random random = new Random(seed);
+		this.alignmentFile = File.createTempFile("msalsa", ".fasta");
+		this.treeFile = File.createTempFile("msalsa", ".dnd");
+
+		try (PrintWriter writer = new PrintWriter(this.alignmentFile)) {
+			for (int r = 0; r < numberOfSequences; r++) {
+				writer.println(">seq" + r);
+				StringBuilder sequence = new StringBuilder();
+				for (int c = 0; c < length; c++) {
+					sequence.append(random.nextInt(5) == 0 ? '-' : RESIDUES.charAt(random.nextInt(RESIDUES.length())));
+				}
+				writer.println(sequence);
+			}
+		}
+
+		StringBuilder tree = new StringBuilder("(seq0:0.1");
+		for (int r = 1; r < numberOfSequences; r++) {
+			tree.append(",seq").append(r).append(":0.").append(r);
+		}
+		tree.append(");");
+		try (PrintWriter writer = new PrintWriter(this.treeFile)) {
+			writer.println(tree);
+		}
+	}
+
+	String getAlignmentPath() {
+		return this.alignmentFile.getPath();
+	}
+
+	String getTreePath() {
+		return this.treeFile.getPath();
+	}
+
+	/**
+	 * The alignment as saved in a FASTA file, to compare alignments byte by
+	 * byte
+	 */
+	static byte[] toFasta(final Alignment alignment) throws IOException, SALSAException {
+		ByteArrayOutputStream stream = new ByteArrayOutputStream();
+		alignment.save(stream);
+		return stream.toByteArray();
+	}
+
+	void delete() {
+		this.alignmentFile.delete();
+		this.treeFile.delete();
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.algorithm;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+import junit.framework.TestCase;
+
+public class TreeTest extends TestCase {
+	/**
+	 * Quoted labels, comments, labels of internal nodes, missing lengths and
+	 * a root with four sons
+	 */
+	public void testParse() throws SALSAException {
+		Tree tree = parse("[guide tree]\r\n('seq ''a''':0.1,\r\n  (B:0.2,C:0.3)90:0.4 [bootstrap],D:0.5, E);\n", 5);
+
+		assertEquals(5, tree.getNumberOfLeaves());
+		Node root = tree.getRoot();
+		assertEquals(NewickParser.ARTIFICIAL_NODE_NAME, root.getName());
+		assertEquals(5, root.getDescendentLeaves());
+		assertNull(root.getParent());
+		assertEquals("E", root.getRight().getName());
+		assertEquals(0.0, root.getRight().getDistance());
+
+		Node first = root.getLeft().getLeft().getLeft();
+		assertEquals("seq 'a'", first.getName());
+		assertEquals((double) 0.1f, first.getDistance());
+		Node internal = first.getBrother();
+		assertEquals(2, internal.getDescendentLeaves());
+		assertEquals((double) 0.4f, internal.getDistance());
+
+		double[] weights = new double[5];
+		tree.generateWeights(new String[] { "E", "D", "C", "B", "seq 'a'" }, weights);
+		assertEquals(0.1f, weights[4], 1e-6);
+		assertEquals(0.0, weights[0]);
+	}
+
+	/**
+	 * A caterpillar tree is deeper than the stack of the thread could follow
+	 * with a recursion
+	 */
+	public void testDeepTree() throws SALSAException {
+		final int numberOfLeaves = 100000;
+		StringBuilder newick = new StringBuilder();
+		String[] names = new String[numberOfLeaves];
+		for (int i = 1; i < numberOfLeaves; i++) {
+			newick.append('(');
+		}
+		for (int i = 0; i < numberOfLeaves; i++) {
+			names[i] = "L" + i;
+			newick.append(names[i]).append(":1");
+			if (i > 0) {
+				newick.append("):1");
+			}
+			newick.append(i == numberOfLeaves - 1 ? ";" : ",");
+		}
+
+		Tree tree = parse(newick.toString(), numberOfLeaves);
+		assertEquals(numberOfLeaves, tree.getRoot().getDescendentLeaves());
+
+		tree.changeRoot();
+		double[] weights = new double[numberOfLeaves];
+		double weightsSum = tree.generateWeights(names, weights);
+		assertTrue(weightsSum > 0);
+		for (double weight : weights) {
+			assertTrue(weight > 0);
+		}
+	}
+
+	/**
+	 * Incomplete trees, invalid lengths and more leaves than sequences are
+	 * refused
+	 */
+	public void testInvalid() {
+		for (String newick : new String[] { "(A:0.1,B:0.2", "(A:x,B:1);", "('A:1,B:1);", "(A,B,C);", "(A,B)C D;" }) {
+			try {
+				parse(newick, 2);
+				fail(newick);
+			} catch (SALSAException e) {
+				// Expected
+			}
+		}
+	}
+
+	private static Tree parse(final String newick, final int numberOfSequences) throws SALSAException {
+		return new Tree(ByteBuffer.wrap(newick.getBytes(StandardCharsets.ISO_8859_1)), numberOfSequences);
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.salsaw.msalsa.algorithm.Alignment;
+import com.salsaw.msalsa.algorithm.GAP;
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Operations of the alignment used by the local search: the calculation of
+ * the WSP-Score and the movement of a GAP.
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlignmentBenchmark {
+	@Param({ "100", "400" })
+	public int numberOfSequences;
+
+	@Param({ "500", "2000" })
+	public int length;
+
+	private SyntheticAlignment syntheticAlignment;
+	private Alignment alignment;
+	private GAP[] movableGAPs;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, SALSAException {
+		this.syntheticAlignment = new SyntheticAlignment(this.numberOfSequences, this.length, 1);
+		this.alignment = new Alignment(this.syntheticAlignment.getAlignmentFilePath(),
+				this.syntheticAlignment.getTreeFilePath(), EmbeddedScoringMatrix.BLOSUM62, 0.2, 10,
+				TerminalGAPsStrategy.ONLY_GEP);
+
+		// GAPs that could be moved of one position in both directions
+		ArrayList<GAP> GAPs = new ArrayList<>();
+		for (GAP g : this.alignment.getGAPS()) {
+			if (g.getBegin() > 0 && g.getEnd() < this.length - 1) {
+				GAPs.add(g);
+			}
+		}
+		this.movableGAPs = GAPs.toArray(new GAP[GAPs.size()]);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.syntheticAlignment.delete();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public double WSP() {
+		return this.alignment.WSP();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public double moveLeft() throws SALSAException {
+		GAP g = nextGAP();
+		double delta = this.alignment.moveLeft(g);
+		this.alignment.goBackToRight(g);
+		return delta;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.NANOSECONDS)
+	public double moveRight() throws SALSAException {
+		GAP g = nextGAP();
+		double delta = this.alignment.moveRight(g);
+		this.alignment.goBackToLeft(g);
+		return delta;
+	}
+
+	private GAP nextGAP() {
+		GAP g = this.movableGAPs[this.next];
+		this.next = (this.next + 1) % this.movableGAPs.length;
+		return g;
+	}
+}
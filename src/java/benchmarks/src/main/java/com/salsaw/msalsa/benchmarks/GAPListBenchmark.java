@@ -0,0 +1,102 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.salsaw.msalsa.algorithm.Alignment;
+import com.salsaw.msalsa.algorithm.FastRandom;
+import com.salsaw.msalsa.algorithm.GAP;
+import com.salsaw.msalsa.algorithm.GAPList;
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Removal of a random GAP from the GAPs list of a large alignment, as done by
+ * the local search when two GAPs are unified, compared with the removal from
+ * an ArrayList. The GAP is added again, so the size of the list does not
+ * change.
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GAPListBenchmark {
+	@Param({ "200", "1000" })
+	public int numberOfSequences;
+
+	@Param({ "2000" })
+	public int length;
+
+	private SyntheticAlignment syntheticAlignment;
+	private GAPList gapList;
+	private ArrayList<GAP> arrayList;
+	private FastRandom random;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, SALSAException {
+		this.syntheticAlignment = new SyntheticAlignment(this.numberOfSequences, this.length, 1);
+		Alignment alignment = new Alignment(this.syntheticAlignment.getAlignmentFilePath(),
+				this.syntheticAlignment.getTreeFilePath(), EmbeddedScoringMatrix.BLOSUM62, 0.2, 10,
+				TerminalGAPsStrategy.ONLY_GEP);
+		this.gapList = alignment.getGAPS();
+		this.arrayList = new ArrayList<>(this.gapList);
+		this.random = new FastRandom(42);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.syntheticAlignment.delete();
+	}
+
+	@Benchmark
+	public GAP gapList() {
+		GAP g = this.gapList.sample(this.random);
+		this.gapList.remove(g);
+		this.gapList.add(g);
+		return g;
+	}
+
+	@Benchmark
+	public GAP arrayList() {
+		GAP g = this.arrayList.get(this.random.nextInt(this.arrayList.size()));
+		this.arrayList.remove(g);
+		this.arrayList.add(g);
+		return g;
+	}
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.salsaw.msalsa.algorithm.Alignment;
+import com.salsaw.msalsa.algorithm.AlignmentSnapshot;
+import com.salsaw.msalsa.algorithm.Alphabet;
+import com.salsaw.msalsa.algorithm.DistanceMatrix;
+import com.salsaw.msalsa.algorithm.FastaAlignmentReader;
+import com.salsaw.msalsa.algorithm.FastaFileReader;
+import com.salsaw.msalsa.algorithm.SubstitutionMatrix;
+import com.salsaw.msalsa.algorithm.Tree;
+import com.salsaw.msalsa.algorithm.enums.AlphabetType;
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * Reading of the input files: the substitution matrix, the alignment in
+ * FASTA format, the guide tree and the distance matrix. Also the conversion of the residues to
+ * their integer form and back, and the creation of an alignment from the
+ * input files compared with the reload of its snapshot.
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputBenchmark {
+	@Param({ "100", "1000" })
+	public int numberOfSequences;
+
+	@Param({ "1000" })
+	public int length;
+
+	@Param({ "BLOSUM62" })
+	public String scoringMatrix;
+
+	private SyntheticAlignment syntheticAlignment;
+	private Alphabet alphabet;
+	private byte[] residues;
+	private byte[] codes;
+	private File snapshotFile;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, SALSAException {
+		this.syntheticAlignment = new SyntheticAlignment(this.numberOfSequences, this.length, 1);
+		this.alphabet = new Alphabet(AlphabetType.PROTEINS);
+		this.residues = new FastaAlignmentReader(this.syntheticAlignment.getAlignmentFilePath()).getResidues();
+		this.codes = new byte[this.residues.length];
+		this.alphabet.encode(this.residues, this.codes);
+		this.snapshotFile = File.createTempFile("msalsa-benchmark", ".snapshot");
+		AlignmentSnapshot.save(createAlignment(), this.snapshotFile.getPath());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.syntheticAlignment.delete();
+		this.snapshotFile.delete();
+	}
+
+	@Benchmark
+	public SubstitutionMatrix loadSubstitutionMatrix() throws IOException, SALSAException {
+		try (InputStream stream = SubstitutionMatrix.class.getResourceAsStream("/matrix/" + this.scoringMatrix)) {
+			return new SubstitutionMatrix(stream, null, 0.2);
+		}
+	}
+
+	@Benchmark
+	public FastaFileReader readFasta() throws IOException {
+		return new FastaFileReader(this.syntheticAlignment.getAlignmentFilePath());
+	}
+
+	@Benchmark
+	public FastaAlignmentReader readFastaAlignment() throws IOException, SALSAException {
+		return new FastaAlignmentReader(this.syntheticAlignment.getAlignmentFilePath());
+	}
+
+	@Benchmark
+	public byte[] encode() throws SALSAException {
+		byte[] destination = new byte[this.residues.length];
+		this.alphabet.encode(this.residues, destination);
+		return destination;
+	}
+
+	@Benchmark
+	public byte[] decode() throws SALSAException {
+		byte[] destination = new byte[this.codes.length];
+		this.alphabet.decode(this.codes, destination);
+		return destination;
+	}
+
+	@Benchmark
+	public Alignment createAlignment() throws IOException, SALSAException {
+		return new Alignment(this.syntheticAlignment.getAlignmentFilePath(),
+				this.syntheticAlignment.getTreeFilePath(), EmbeddedScoringMatrix.valueOf(this.scoringMatrix), 0.2,
+				10, TerminalGAPsStrategy.ONLY_GEP);
+	}
+
+	@Benchmark
+	public AlignmentSnapshot loadSnapshot() throws IOException, SALSAException {
+		return AlignmentSnapshot.load(this.snapshotFile.getPath());
+	}
+
+	@Benchmark
+	public Tree readTree() throws IOException, SALSAException {
+		return new Tree(this.syntheticAlignment.getTreeFilePath(), this.numberOfSequences);
+	}
+
+	@Benchmark
+	public DistanceMatrix readDistanceMatrix() throws IOException, SALSAException {
+		try (InputStream stream = new FileInputStream(this.syntheticAlignment.getDistanceMatrixFilePath())) {
+			return new DistanceMatrix(stream);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.salsaw.msalsa.algorithm.Alignment;
+import com.salsaw.msalsa.algorithm.LocalSearch;
+import com.salsaw.msalsa.algorithm.StripedLocalSearch;
+import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
+import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+
+/**
+ * A complete local search. The seed is fixed, therefore every invocation does
+ * exactly the same moves on a fresh copy of the same alignment.
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LocalSearchBenchmark {
+	private static final long SEED = 42;
+	private static final int STRIPES = 4;
+
+	@Param({ "50", "200" })
+	public int numberOfSequences;
+
+	@Param({ "400", "1500" })
+	public int length;
+
+	@Param({ "1000" })
+	public int minIterations;
+
+	private SyntheticAlignment syntheticAlignment;
+	private Alignment initialAlignment;
+	private Alignment alignment;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException, SALSAException {
+		this.syntheticAlignment = new SyntheticAlignment(this.numberOfSequences, this.length, 1);
+		this.initialAlignment = new Alignment(this.syntheticAlignment.getAlignmentFilePath(),
+				this.syntheticAlignment.getTreeFilePath(), EmbeddedScoringMatrix.BLOSUM62, 0.2, 10,
+				TerminalGAPsStrategy.ONLY_GEP);
+	}
+
+	@Setup(Level.Invocation)
+	public void copyAlignment() throws SALSAException {
+		this.alignment = new Alignment(this.initialAlignment);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		this.syntheticAlignment.delete();
+	}
+
+	@Benchmark
+	public Alignment execute() throws SALSAException {
+		LocalSearch localSearch = new LocalSearch(this.alignment, 30, this.minIterations, 0.1, SEED);
+		return localSearch.execute();
+	}
+
+	/**
+	 * The same search divided in stripes, one thread each: compared with
+	 * execute() it shows whether the parallel speedup pays for the epochs
+	 */
+	@Benchmark
+	public Alignment executeStriped() throws SALSAException, InterruptedException {
+		StripedLocalSearch stripedLocalSearch = new StripedLocalSearch(this.alignment, 30, this.minIterations, 0.1,
+				STRIPES, STRIPES, SEED);
+		return stripedLocalSearch.execute();
+	}
+}
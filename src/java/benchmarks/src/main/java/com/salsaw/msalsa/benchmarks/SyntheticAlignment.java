@@ -0,0 +1,198 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generate the input files of a synthetic protein alignment: a FASTA file
+ * with the aligned sequences, a balanced guide tree in Newick format and a
+ * distance matrix in the format written by Clustal.
+ * <p>
+ * All the sequences derive from a common random ancestor with some mutations
+ * and some GAPs, therefore the alignment looks like a real one and the local
+ * search has improvements to find. The same seed always generates the same
+ * files.
+ * </p>
+ *
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+public final class SyntheticAlignment {
+	// CONSTANTS
+	private static final String RESIDUES = "ARNDCQEGHILKMFPSTWYV";
+	private static final double MUTATION_PROBABILITY = 0.3;
+	private static final int MAX_GAP_LENGTH = 4;
+	private static final int LINE_LENGTH = 60;
+
+	// FIELDS
+	private final int numberOfSequences;
+	private final int length;
+	private final Random random;
+	private final Path alignmentFile;
+	private final Path treeFile;
+	private final Path distanceMatrixFile;
+
+	// CONSTRUCTOR
+	/**
+	 * Create the files inside a new temporary directory
+	 *
+	 * @param numberOfSequences
+	 * @param length
+	 * @param seed
+	 * @throws IOException
+	 */
+	public SyntheticAlignment(final int numberOfSequences, final int length, final long seed)
+			throws IOException {
+		if (numberOfSequences < 2) {
+			throw new IllegalArgumentException("numberOfSequences");
+		}
+		if (length < 1) {
+			throw new IllegalArgumentException("length");
+		}
+
+		this.numberOfSequences = numberOfSequences;
+		this.length = length;
+		this.random = new Random(seed);
+
+		Path directory = Files.createTempDirectory("msalsa-benchmark");
+		directory.toFile().deleteOnExit();
+		this.alignmentFile = directory.resolve("alignment.fasta");
+		this.treeFile = directory.resolve("alignment.dnd");
+		this.distanceMatrixFile = directory.resolve("alignment.distmat");
+
+		writeAlignment();
+		writeTree();
+		writeDistanceMatrix();
+	}
+
+	// GET / SET
+	public final String getAlignmentFilePath() {
+		return this.alignmentFile.toString();
+	}
+
+	public final String getTreeFilePath() {
+		return this.treeFile.toString();
+	}
+
+	public final String getDistanceMatrixFilePath() {
+		return this.distanceMatrixFile.toString();
+	}
+
+	// METHODS
+	/**
+	 * Remove the generated files
+	 *
+	 * @throws IOException
+	 */
+	public final void delete() throws IOException {
+		Files.deleteIfExists(this.alignmentFile);
+		Files.deleteIfExists(this.treeFile);
+		Files.deleteIfExists(this.distanceMatrixFile);
+		Files.deleteIfExists(this.alignmentFile.getParent());
+	}
+
+	// PRIVATE METHODS
+	private void writeAlignment() throws IOException {
+		char[] ancestor = new char[this.length];
+		for (int c = 0; c < this.length; c++) {
+			ancestor[c] = RESIDUES.charAt(this.random.nextInt(RESIDUES.length()));
+		}
+
+		char[] sequence = new char[this.length];
+		try (BufferedWriter bw = Files.newBufferedWriter(this.alignmentFile, StandardCharsets.US_ASCII)) {
+			for (int r = 0; r < this.numberOfSequences; r++) {
+				for (int c = 0; c < this.length; c++) {
+					sequence[c] = (this.random.nextDouble() < MUTATION_PROBABILITY)
+							? RESIDUES.charAt(this.random.nextInt(RESIDUES.length())) : ancestor[c];
+				}
+
+				// About one GAP every 15 residues
+				for (int g = 0; g < this.length / 15; g++) {
+					int begin = this.random.nextInt(this.length);
+					int end = Math.min(this.length, begin + 1 + this.random.nextInt(MAX_GAP_LENGTH));
+					for (int c = begin; c < end; c++) {
+						sequence[c] = '-';
+					}
+				}
+
+				bw.write(">" + sequenceName(r));
+				bw.newLine();
+				for (int c = 0; c < this.length; c += LINE_LENGTH) {
+					bw.write(sequence, c, Math.min(LINE_LENGTH, this.length - c));
+					bw.newLine();
+				}
+			}
+		}
+	}
+
+	private void writeTree() throws IOException {
+		int middle = this.numberOfSequences / 2;
+		String tree = "(" + subTree(0, middle) + "," + subTree(middle, this.numberOfSequences) + ");";
+		Files.write(this.treeFile, tree.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Random symmetric distances, a row for each sequence preceded by its
+	 * name
+	 */
+	private void writeDistanceMatrix() throws IOException {
+		double[] distances = new double[this.numberOfSequences * this.numberOfSequences];
+		for (int i = 0; i < this.numberOfSequences; i++) {
+			for (int j = i + 1; j < this.numberOfSequences; j++) {
+				distances[i * this.numberOfSequences + j] = 0.2 + 0.4 * this.random.nextDouble();
+				distances[j * this.numberOfSequences + i] = distances[i * this.numberOfSequences + j];
+			}
+		}
+
+		try (BufferedWriter bw = Files.newBufferedWriter(this.distanceMatrixFile, StandardCharsets.US_ASCII)) {
+			bw.write(Integer.toString(this.numberOfSequences));
+			bw.newLine();
+			for (int i = 0; i < this.numberOfSequences; i++) {
+				bw.write(sequenceName(i));
+				for (int j = 0; j < this.numberOfSequences; j++) {
+					bw.write(String.format(Locale.ROOT, " %.6f", distances[i * this.numberOfSequences + j]));
+				}
+				bw.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Balanced tree with the sequences in [first, last)
+	 */
+	private String subTree(final int first, final int last) {
+		if (last - first == 1) {
+			return sequenceName(first) + ":" + branchLength(0.05, 0.5);
+		}
+		int middle = (first + last) / 2;
+		return "(" + subTree(first, middle) + "," + subTree(middle, last) + "):" + branchLength(0.01, 0.2);
+	}
+
+	private String branchLength(final double min, final double max) {
+		return String.format(Locale.ROOT, "%.3f", min + (max - min) * this.random.nextDouble());
+	}
+
+	private static String sequenceName(final int index) {
+		return "seq" + index;
+	}
+}
@@ -23,14 +23,23 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.FilenameUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import com.salsaw.msalsa.algorithm.Alignment;
+import com.salsaw.msalsa.algorithm.AlignmentSnapshot;
 import com.salsaw.msalsa.algorithm.Alphabet;
+import com.salsaw.msalsa.algorithm.CompressedFiles;
 import com.salsaw.msalsa.algorithm.Constants;
 import com.salsaw.msalsa.algorithm.DistanceMatrix;
 import com.salsaw.msalsa.algorithm.LocalSearch;
+import com.salsaw.msalsa.algorithm.LocalSearchListener;
+import com.salsaw.msalsa.algorithm.LocalSearchProgress;
+import com.salsaw.msalsa.algorithm.MultiStartLocalSearch;
+import com.salsaw.msalsa.algorithm.StripedLocalSearch;
 import com.salsaw.msalsa.algorithm.SubstitutionMatrix;
 import com.salsaw.msalsa.algorithm.enums.AlphabetType;
 import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
@@ -47,12 +56,19 @@ import com.salsaw.msalsa.clustal.ClustalWManager;
  */
 public class SalsaAlgorithmExecutor {
 	
+	static final Logger logger = LogManager.getLogger(SalsaAlgorithmExecutor.class);
+	
 	public static final String M_SALSA_HEADER = "MSALSA";
 	private static final String SALSA_ALIGMENT_SUFFIX = "-" + M_SALSA_HEADER + "-aln";
 	public static final String SALSA_ALIGMENT_FASTA_SUFFIX = SALSA_ALIGMENT_SUFFIX + Constants.FASTA_FILE_EXSTENSION;
 	public static final String SALSA_ALIGMENT_CLUSTAL_SUFFIX = "-" + M_SALSA_HEADER + "-aln" + Constants.CLUSTAL_FILE_EXSTENSION;
 	public static final String SALSA_TREE_SUFFIX = "-" + M_SALSA_HEADER + "-aln.ph";
 	
+	/**
+	 * Number of iterations of the local search between two progress reports
+	 */
+	public static final int PROGRESS_INTERVAL = 10000;
+	
 	public static final String AUTHOR_ALESSANDRO_DANIELE = "Alessandro Daniele";
 	public static final String AUTHOR_LINK_ALESSANDRO_DANIELE = "https://www.linkedin.com/pub/alessandro-daniele/31/b1a/280";
 	public static final String AUTHOR_FABIO_CESARATO = "Fabio Cesarato";
@@ -80,54 +96,268 @@ public class SalsaAlgorithmExecutor {
 			salsaParameters.getEmbeddedScoringMatrix() == EmbeddedScoringMatrix.NONE){
 			throw new SALSAParameterException("A matrix serie or a scoring matrix must be set");
 		}	
+		
+		if (salsaParameters.getMinIterations() < 1){
+			throw new SALSAParameterException("The minimum number of iterations must be greater than 0");
+		}
+		
+		if (salsaParameters.getRestarts() < 1 || 
+			salsaParameters.getThreads() < 1){
+			throw new SALSAParameterException("The number of restarts and threads must be greater than 0");
+		}
+		
+		if (salsaParameters.getStripes() < 1){
+			throw new SALSAParameterException("The number of stripes must be greater than 0");
+		}
+		
+		if (salsaParameters.getRestarts() > 1 &&
+			salsaParameters.getStripes() > 1){
+			throw new SALSAParameterException("Multiple restarts and multiple stripes cannot be used together");
+		}
+		
+		if (salsaParameters.getGeneratePhylogeneticTree() == true &&
+			CompressedFiles.isCompressedOutput(salsaParameters.getOutputFile())){
+			throw new SALSAParameterException("To calculate the phylogenetic tree the output file cannot be compressed");
+		}
+		
+		if (salsaParameters.getTimeLimit() < 0 ||
+			salsaParameters.getMinImprovementRate() < 0){
+			throw new SALSAParameterException("The time limit and the minimum improvement rate cannot be negative");
+		}
+		
+		if (salsaParameters.getCheckpointFile() != null &&
+			(salsaParameters.getRestarts() > 1 || salsaParameters.getStripes() > 1)){
+			throw new SALSAParameterException("The checkpoints cannot be used with multiple restarts or multiple stripes");
+		}
+		
+		if (salsaParameters.getCheckpointFile() != null &&
+			salsaParameters.getCheckpointInterval() < 1){
+			throw new SALSAParameterException("The checkpoint interval must be greater than 0");
+		}
+		
+		if (salsaParameters.getAnnealingIterations() < 0){
+			throw new SALSAParameterException("The number of annealing iterations cannot be negative");
+		}
+		
+		if (salsaParameters.getAnnealingIterations() > 0 &&
+			(salsaParameters.getStripes() > 1 || salsaParameters.getCheckpointFile() != null)){
+			throw new SALSAParameterException("The simulated annealing cannot be used with multiple stripes or with the checkpoints");
+		}
+		
+		if (salsaParameters.getProbabilityOfBlockMove() < 0 ||
+			salsaParameters.getProbabilityOfBlockMove() > 1){
+			throw new SALSAParameterException("The probability of block move must be between 0 and 1");
+		}
 	}
 	
 	public static void callClustal(SalsaParameters salsaParameters) throws SALSAException, IOException, InterruptedException {
+		callClustal(salsaParameters, null);
+	}
+	
+	/**
+	 * Execute M-SALSA and notify the progress of the local search to the listener.
+	 * The progress is not reported when multiple restarts are used.
+	 * 
+	 * @param salsaParameters
+	 * @param listener can be null
+	 * @throws SALSAException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public static void callClustal(SalsaParameters salsaParameters, final LocalSearchListener listener) throws SALSAException, IOException, InterruptedException {
 		validateParameters(salsaParameters);
 		
 		// PROCESS
-		String phylogeneticTreeFilePath = salsaParameters.getPhylogeneticTreeFile();
-		String alignmentFilePath = salsaParameters.getInputFile();
-		String distanceMatrixFilePath = salsaParameters.getDistanceMatrix();
+		ClustalFileMapper clustalFileMapper;
+		Alignment alignment;
+		AlignmentSnapshot checkpoint = loadCheckpoint(salsaParameters.getCheckpointFile());
+		if (checkpoint == null) {
+			clustalFileMapper = createInitialAlignment(salsaParameters);
+			alignment = createAlignment(salsaParameters, clustalFileMapper);
+		} else {
+			// The checkpoint already contains the alignment to improve
+			clustalFileMapper = new ClustalFileMapper(null);
+			alignment = checkpoint.getAlignment();
+		}
+		if (alignment.getDeltaEngine() != salsaParameters.getDeltaEngine()) {
+			alignment.setDeltaEngine(salsaParameters.getDeltaEngine());
+		}
 		
-		ClustalFileMapper clustalFileMapper = null;
+		LocalSearchListener progressLogger = new LocalSearchListener() {
+			@Override
+			public void progress(LocalSearchProgress progress) {
+				logger.debug("Local search progress: {}", progress);
+				if (listener != null) {
+					listener.progress(progress);
+				}
+			}
+		};
+
+		long timeLimit = TimeUnit.SECONDS.toMillis(salsaParameters.getTimeLimit());
 		
+		if (salsaParameters.getRestarts() > 1) {
+			MultiStartLocalSearch multiStartLocalSearch = new MultiStartLocalSearch(alignment,
+					salsaParameters.getGamma(), salsaParameters.getMinIterations(),
+					salsaParameters.getProbabilityOfSplit(), salsaParameters.getRestarts(),
+					salsaParameters.getThreads(), salsaParameters.getSeed());
+			multiStartLocalSearch.setTimeLimit(timeLimit);
+			multiStartLocalSearch.setMinImprovementRate(salsaParameters.getMinImprovementRate());
+			multiStartLocalSearch.setMoveSelection(salsaParameters.getMoveSelection());
+			multiStartLocalSearch.setBlockMoveProbability(salsaParameters.getProbabilityOfBlockMove());
+			multiStartLocalSearch.setAnnealing(salsaParameters.getAnnealingIterations());
+
+			alignment = multiStartLocalSearch.execute();
+
+			double[] scores = multiStartLocalSearch.getScores();
+			for (int run = 0; run < scores.length; run++) {
+				logger.info("Local search {} (seed {}): WSP-Score {} after {} iterations", run,
+						multiStartLocalSearch.getSeeds()[run], scores[run], multiStartLocalSearch.getIterations()[run]);
+			}
+			logger.info("Best WSP-Score {} from local search {}", scores[multiStartLocalSearch.getBestRun()],
+					multiStartLocalSearch.getBestRun());
+		} else if (salsaParameters.getStripes() > 1) {
+			StripedLocalSearch stripedLocalSearch = new StripedLocalSearch(alignment,
+					salsaParameters.getGamma(), salsaParameters.getMinIterations(),
+					salsaParameters.getProbabilityOfSplit(), salsaParameters.getStripes(),
+					salsaParameters.getThreads(), salsaParameters.getSeed());
+			stripedLocalSearch.setListener(progressLogger, PROGRESS_INTERVAL);
+			stripedLocalSearch.setTimeLimit(timeLimit);
+			stripedLocalSearch.setMinImprovementRate(salsaParameters.getMinImprovementRate());
+			stripedLocalSearch.setMoveSelection(salsaParameters.getMoveSelection());
+			stripedLocalSearch.setBlockMoveProbability(salsaParameters.getProbabilityOfBlockMove());
+
+			alignment = stripedLocalSearch.execute();
+
+			logger.info("Local search on {} stripes (seed {}) completed in {} epochs and {} iterations",
+					stripedLocalSearch.getNumberOfStripes(), salsaParameters.getSeed(),
+					stripedLocalSearch.getNumberOfEpochs(), stripedLocalSearch.getIterations());
+			if (stripedLocalSearch.isTimeLimitReached()) {
+				logger.warn("Local search stopped by the time limit of {} seconds", salsaParameters.getTimeLimit());
+			}
+		} else {
+			LocalSearch localSearch;
+			if (checkpoint != null && checkpoint.getSearchState() != null) {
+				localSearch = new LocalSearch(alignment, salsaParameters.getGamma(),
+						salsaParameters.getMinIterations(),
+						salsaParameters.getProbabilityOfSplit(), checkpoint.getSearchState());
+				logger.info("Local search resumed at iteration {}", checkpoint.getSearchState().getIterations());
+			} else {
+				localSearch = new LocalSearch(alignment, salsaParameters.getGamma(),
+						salsaParameters.getMinIterations(),
+						salsaParameters.getProbabilityOfSplit(), salsaParameters.getSeed());
+			}
+			localSearch.setListener(progressLogger, PROGRESS_INTERVAL);
+			if (salsaParameters.getCheckpointFile() != null) {
+				localSearch.setCheckpoint(salsaParameters.getCheckpointFile(),
+						TimeUnit.SECONDS.toMillis(salsaParameters.getCheckpointInterval()));
+			}
+			localSearch.setTimeLimit(timeLimit);
+			localSearch.setMinImprovementRate(salsaParameters.getMinImprovementRate());
+			localSearch.setMoveSelection(salsaParameters.getMoveSelection());
+			localSearch.setBlockMoveProbability(salsaParameters.getProbabilityOfBlockMove());
+			localSearch.setAnnealing(salsaParameters.getAnnealingIterations());
+
+			alignment = localSearch.execute();
+
+			logger.info("Local search (seed {}) completed after {} iterations with WSP-Score {}",
+					salsaParameters.getSeed(), localSearch.getIterations(), localSearch.getScore());
+			if (localSearch.isTimeLimitReached()) {
+				logger.warn("Local search stopped by the time limit of {} seconds", salsaParameters.getTimeLimit());
+			}
+		}
+		alignment.save(salsaParameters.getOutputFile());					
+		
+		if (salsaParameters.getCheckpointFile() != null) {
+			// The search is completed: a new execution must not resume it
+			Files.deleteIfExists(Paths.get(salsaParameters.getCheckpointFile()));
+		}
+		
+		if (salsaParameters.getGeneratePhylogeneticTree() == true){
+			// Generate phylogenetic tree using ClustalW from SALSA alignment
+			clustalFileMapper.setAlignmentFilePath(salsaParameters.getOutputFile());
+			ClustalWManager clustalWManager = new ClustalWManager();
+			clustalWManager.generateTree(salsaParameters.getClustalWPath(), clustalFileMapper);
+			salsaParameters.setPhylogeneticTreeFile(clustalFileMapper.getTreeFilePath());
+		}			
+	}
+	
+	/**
+	 * Prepare the initial alignment and the guide tree, calling Clustal if
+	 * they are not given
+	 * 
+	 * @param salsaParameters
+	 * @return The paths of the files to use
+	 * @throws SALSAException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private static ClustalFileMapper createInitialAlignment(SalsaParameters salsaParameters) throws SALSAException, IOException, InterruptedException {
 		if ((salsaParameters.getClustalWPath() != null || salsaParameters.getClustalOmegaPath() != null) &&
 			 salsaParameters.getPhylogeneticTreeFile() == null) {
-			// Find clustal type
-			ClustalType clustalType;
-			String clustalPath;
-			// Evaluate first ClustalOmega because this is used to perform alignment also if ClustalW path is set
-			if (salsaParameters.getClustalOmegaPath() != null) {
-				clustalType = ClustalType.CLUSTAL_O;
-				clustalPath = salsaParameters.getClustalOmegaPath();
-				// Normalize input only for ClustalOmega
-				salsaParameters.setInputFile(normalizeInputFile(Paths.get(salsaParameters.getInputFile())));
-			} else if (salsaParameters.getClustalWPath() != null) {
-				clustalType = ClustalType.CLUSTAL_W;
-				clustalPath = salsaParameters.getClustalWPath();
-			} else {
-				throw new UnsupportedOperationException("Unable to find correct clustal");
+			// Clustal requires a plain input file: a temporary copy is used
+			// only to create the initial alignment
+			String inputFile = salsaParameters.getInputFile();
+			String decompressedInputFile = null;
+			if (CompressedFiles.isCompressed(inputFile)) {
+				decompressedInputFile = CompressedFiles.decompressToTemporaryFile(inputFile,
+						Constants.FASTA_FILE_EXSTENSION);
+				salsaParameters.setInputFile(decompressedInputFile);
 			}
+			
+			try {
+				// Find clustal type
+				ClustalType clustalType;
+				String clustalPath;
+				// Evaluate first ClustalOmega because this is used to perform alignment also if ClustalW path is set
+				if (salsaParameters.getClustalOmegaPath() != null) {
+					clustalType = ClustalType.CLUSTAL_O;
+					clustalPath = salsaParameters.getClustalOmegaPath();
+					// Normalize input only for ClustalOmega
+					salsaParameters.setInputFile(normalizeInputFile(Paths.get(salsaParameters.getInputFile())));
+				} else if (salsaParameters.getClustalWPath() != null) {
+					clustalType = ClustalType.CLUSTAL_W;
+					clustalPath = salsaParameters.getClustalWPath();
+				} else {
+					throw new UnsupportedOperationException("Unable to find correct clustal");
+				}
 
-			// Use Clustal to generate initial alignment
-			clustalFileMapper = new ClustalFileMapper(salsaParameters.getInputFile());
+				// Use Clustal to generate initial alignment
+				ClustalFileMapper clustalFileMapper = new ClustalFileMapper(salsaParameters.getInputFile());
 
-			ClustalManager clustalManager = ClustalManager.createClustalManager(clustalType);
-			clustalManager.callClustal(clustalPath, clustalFileMapper);
-			alignmentFilePath = clustalFileMapper.getAlignmentFilePath();
-			phylogeneticTreeFilePath = clustalFileMapper.getTreeFilePath();
-			distanceMatrixFilePath = clustalFileMapper.getDistanceMatrixFilePath();
+				ClustalManager clustalManager = ClustalManager.createClustalManager(clustalType);
+				clustalManager.callClustal(clustalPath, clustalFileMapper);
+				return clustalFileMapper;
+			} finally {
+				if (decompressedInputFile != null) {
+					// Also the normalized copy, if created from the temporary one
+					Files.deleteIfExists(Paths.get(salsaParameters.getInputFile()));
+					Files.deleteIfExists(Paths.get(decompressedInputFile));
+					salsaParameters.setInputFile(inputFile);
+				}
+			}
 		}
 		else
 		{
 			// Start from existing alignments file
-			clustalFileMapper = new ClustalFileMapper(null);
-			clustalFileMapper.setAlignmentFilePath(alignmentFilePath);
-			clustalFileMapper.setPhylogeneticTreeFile(phylogeneticTreeFilePath);
-			clustalFileMapper.setDistanceMatrixFilePath(distanceMatrixFilePath);
+			ClustalFileMapper clustalFileMapper = new ClustalFileMapper(null);
+			clustalFileMapper.setAlignmentFilePath(salsaParameters.getInputFile());
+			clustalFileMapper.setPhylogeneticTreeFile(salsaParameters.getPhylogeneticTreeFile());
+			clustalFileMapper.setDistanceMatrixFilePath(salsaParameters.getDistanceMatrix());
+			return clustalFileMapper;
 		}
-		
+	}
+	
+	/**
+	 * Read the initial alignment with the substitution matrix chosen by the
+	 * parameters
+	 * 
+	 * @param salsaParameters
+	 * @param clustalFileMapper
+	 * @return
+	 * @throws SALSAException
+	 * @throws IOException
+	 */
+	private static Alignment createAlignment(SalsaParameters salsaParameters, ClustalFileMapper clustalFileMapper) throws SALSAException, IOException {
 		SubstitutionMatrix matrix = null;
 		if (salsaParameters.getScoringMatrixFilePath() != null){
 			// Load user matrix from file
@@ -141,9 +371,9 @@ public class SalsaAlgorithmExecutor {
 				throw new SALSAException("Error: if the type of residues is different from "+ AlphabetType.PROTEINS.toString() +" it is required to specify the scoring matrix or provide one from file.");
 			}
 			
-			if (distanceMatrixFilePath != null &&
+			if (clustalFileMapper.getDistanceMatrixFilePath() != null &&
 				salsaParameters.getMatrixSerie() != MatrixSerie.NONE){
-				try(InputStream stream = new FileInputStream(distanceMatrixFilePath)) {
+				try(InputStream stream = new FileInputStream(clustalFileMapper.getDistanceMatrixFilePath())) {
 					DistanceMatrix dm = new DistanceMatrix(stream);
 					matrix = dm.createSubstitutionMatrix(salsaParameters.getMatrixSerie(), salsaParameters.getGEP());
 				}				
@@ -152,27 +382,40 @@ public class SalsaAlgorithmExecutor {
 		
 		Alignment alignment;		
 		if (matrix != null) {
-			alignment = new Alignment(alignmentFilePath, phylogeneticTreeFilePath, 
+			alignment = new Alignment(clustalFileMapper.getAlignmentFilePath(), clustalFileMapper.getTreeFilePath(), 
 					matrix, salsaParameters.getGOP(), salsaParameters.getTerminalGAPsStrategy());
+		} else if (salsaParameters.getScoringMatrixFilePath() == null &&
+				salsaParameters.getMatrixSerie() != MatrixSerie.NONE) {
+			// Without a distance matrix the identity of the sequences is
+			// estimated on the alignment
+			alignment = new Alignment(clustalFileMapper.getAlignmentFilePath(), clustalFileMapper.getTreeFilePath(), 
+					salsaParameters.getMatrixSerie(), salsaParameters.getGEP(), salsaParameters.getGOP(), salsaParameters.getTerminalGAPsStrategy());
+			logger.info("Substitution matrix chosen from the {} serie: {}", salsaParameters.getMatrixSerie(),
+					alignment.getIdentityEstimate());
 		} else {
-			alignment = new Alignment(alignmentFilePath, phylogeneticTreeFilePath, 
+			alignment = new Alignment(clustalFileMapper.getAlignmentFilePath(), clustalFileMapper.getTreeFilePath(), 
 					salsaParameters.getEmbeddedScoringMatrix(), salsaParameters.getGEP(), salsaParameters.getGOP(), salsaParameters.getTerminalGAPsStrategy());
-		}			
-
-		LocalSearch localSearch = new LocalSearch(alignment, salsaParameters.getGamma(),
-				salsaParameters.getMinIterations(),
-				salsaParameters.getProbabilityOfSplit());
-
-		alignment = localSearch.execute();		
-		alignment.save(salsaParameters.getOutputFile());					
+		}
 		
-		if (salsaParameters.getGeneratePhylogeneticTree() == true){
-			// Generate phylogenetic tree using ClustalW from SALSA alignment
-			clustalFileMapper.setAlignmentFilePath(salsaParameters.getOutputFile());
-			ClustalWManager clustalWManager = new ClustalWManager();
-			clustalWManager.generateTree(salsaParameters.getClustalWPath(), clustalFileMapper);
-			salsaParameters.setPhylogeneticTreeFile(clustalFileMapper.getTreeFilePath());
-		}			
+		return alignment;
+	}
+	
+	/**
+	 * Load the checkpoint of an interrupted execution
+	 * 
+	 * @param checkpointFilePath
+	 * @return null if there is no checkpoint
+	 * @throws IOException
+	 * @throws SALSAException
+	 */
+	private static AlignmentSnapshot loadCheckpoint(String checkpointFilePath) throws IOException, SALSAException {
+		if (checkpointFilePath == null || Files.exists(Paths.get(checkpointFilePath)) == false) {
+			return null;
+		}
+		
+		AlignmentSnapshot checkpoint = AlignmentSnapshot.load(checkpointFilePath);
+		logger.info("Resume from the checkpoint {}", checkpointFilePath);
+		return checkpoint;
 	}
 	
 	/**
@@ -16,14 +16,17 @@
 package com.salsaw.msalsa.cli;
 
 import java.io.Serializable;
+import java.util.Random;
 
 import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlTransient;
 
 import com.beust.jcommander.Parameter;
 import com.salsaw.msalsa.algorithm.enums.AlphabetType;
+import com.salsaw.msalsa.algorithm.enums.DeltaEngine;
 import com.salsaw.msalsa.algorithm.enums.EmbeddedScoringMatrix;
 import com.salsaw.msalsa.algorithm.enums.MatrixSerie;
+import com.salsaw.msalsa.algorithm.enums.MoveSelection;
 import com.salsaw.msalsa.algorithm.enums.TerminalGAPsStrategy;
 
 @XmlRootElement
@@ -38,20 +41,32 @@ public class SalsaParameters implements Serializable {
 	public static final String CLUSTAL_O_PATH = "-clustalOPath";
 	
 	// Documentation of commands
-	public static final String INPUT_FILE__DOCS = "path of a file containing the initial alignment. The file must be in FASTA format";
-	public static final String OUTPUT_FILE_DOCS = "path of the output file. This will be in FASTA format";
+	public static final String INPUT_FILE__DOCS = "path of a file containing the initial alignment. The file must be in FASTA format, also compressed with gzip";
+	public static final String OUTPUT_FILE_DOCS = "path of the output file. This will be in FASTA format, compressed with gzip if the name ends with .gz";
 	public static final String PH_TREE_FILE_DOCS = "file containing the guide tree, used by M-SALSA in order to generate correct weigths for the WSP-Score. The file must be in Newicks format. The typical exstensions are: dnd, ph. Necessary only for a pre-aligned input sequence.";
 	public static final String GOP_DOCS = "GAP Opening Penalty";
 	public static final String GEP_DOCS = "GAP Extension Penalty";
 	public static final String GAMMA_DOCS = "dimension of the range of positions for a GAP during an iteration";
 	public static final String MIN_ITERATIONS_DOCS = "minimum number of iterations";
 	public static final String PROBABILITY_OF_SPLIT_DOCS = "probability of split";
+	public static final String PROBABILITY_OF_BLOCK_MOVE_DOCS = "probability that an iteration of the local search moves together all the GAPs with the same begin and end of the chosen one, instead of the GAP alone: it fixes in a single step a column of GAPs misplaced in many rows. 0 disables the block movements";
 	public static final String TERMINAL_GAPS_STRATEGY_DOCS = "the strategy to be used to manage terminal GAPs";
-	public static final String MATRIX_SERIE_DOCS = "matrix serie to use. The specific scoring matrix will be set base on distance matrix data";
+	public static final String MATRIX_SERIE_DOCS = "matrix serie to use. The specific scoring matrix will be set base on distance matrix data or, without it, on the average identity of the sequences estimated on the alignment";
 	public static final String GENERATE_PHYLOGENETIC_TREE_DOCS = "define if the phylogenetic neighbour-joining tree file must be generated. Requires ClustalW2 path defined. Could be set using  "+ CLUSTAL_W_PATH +" or using ClustalW2 for the alignment";
 	public static final String INPUT_TYPE_DOCS = "type of sequences in input file";
 	public static final String SCORING_MATRIX_DOCS = "distance matrix file";
 	public static final String EMBEDDED_SCORING_MATRIX_DOCS = "provided scoring matrix to use";
+	public static final String RESTARTS_DOCS = "number of independent local searches, each one started from the initial alignment with a different seed. The alignment with the best WSP-Score is kept";
+	public static final String THREADS_DOCS = "number of threads used to execute the independent local searches or the stripes of a single local search";
+	public static final String DELTA_ENGINE_DOCS = "the way used to calculate the improvement of a GAP movement. It changes only the speed of the local search, not its result";
+	public static final String MOVE_SELECTION_DOCS = "the way used to choose the GAP moved by each iteration of the local search and the direction of the movement";
+	public static final String ANNEALING_ITERATIONS_DOCS = "number of iterations of simulated annealing at the beginning of the local search: movements that worsen the WSP-Score are accepted with a probability that decreases over time, to escape from the local optimums. 0 disables the annealing. Cannot be used with more than one stripe or with the checkpoints";
+	public static final String SEED_DOCS = "seed of the random generator used by the local search. The same input and the same seed always produce the same alignment";
+	public static final String TIME_LIMIT_DOCS = "maximum duration of the local search in seconds. When the time ends the best alignment found is returned. 0 means no limit";
+	public static final String MIN_IMPROVEMENT_RATE_DOCS = "the local search ends when the average improvement of the WSP-Score per iteration, measured on the last minimum number of iterations, is lower than this value. 0 disables the criterion";
+	public static final String CHECKPOINT_FILE_DOCS = "file where the state of the local search is saved periodically. If the file exists when M-SALSA starts, the local search is resumed from it. Cannot be used with more than one restart or stripe";
+	public static final String CHECKPOINT_INTERVAL_DOCS = "seconds between two checkpoints of the local search";
+	public static final String STRIPES_DOCS = "number of column stripes searched in parallel by a single local search. The stripes are synchronised periodically. Cannot be used with more than one restart";
 
 	@Parameter(names = { "-inputFile" }, description = INPUT_FILE__DOCS, required = true)
 	private String inputFile;
@@ -79,6 +94,9 @@ public class SalsaParameters implements Serializable {
 
 	@Parameter(names = "-pSplit", description = PROBABILITY_OF_SPLIT_DOCS)
 	private double probabilityOfSplit = 0.1f;
+
+	@Parameter(names = "-pBlockMove", description = PROBABILITY_OF_BLOCK_MOVE_DOCS)
+	private double probabilityOfBlockMove = 0;
 	
 	@Parameter(names = "-terminal", description = TERMINAL_GAPS_STRATEGY_DOCS)
 	private TerminalGAPsStrategy terminalGAPsStrategy = TerminalGAPsStrategy.ONLY_GEP;
@@ -104,6 +122,39 @@ public class SalsaParameters implements Serializable {
 	@Parameter(names = CLUSTAL_W_PATH, description = "define path where clustalW2 is intalled. Use to perform the pre-alignment only if " + CLUSTAL_O_PATH + " not set. Required for generate tree file")
 	private String clustalWPath;
 	
+	@Parameter(names = "-restarts", description = RESTARTS_DOCS)
+	private int restarts = 1;
+
+	@Parameter(names = "-threads", description = THREADS_DOCS)
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	@Parameter(names = "-stripes", description = STRIPES_DOCS)
+	private int stripes = 1;
+
+	@Parameter(names = "-deltaEngine", description = DELTA_ENGINE_DOCS)
+	private DeltaEngine deltaEngine = DeltaEngine.COUNTERS;
+
+	@Parameter(names = "-moveSelection", description = MOVE_SELECTION_DOCS)
+	private MoveSelection moveSelection = MoveSelection.UNIFORM;
+
+	@Parameter(names = "-annealingIterations", description = ANNEALING_ITERATIONS_DOCS)
+	private int annealingIterations = 0;
+
+	@Parameter(names = "-seed", description = SEED_DOCS)
+	private long seed = new Random().nextLong();
+
+	@Parameter(names = "-timeLimit", description = TIME_LIMIT_DOCS)
+	private int timeLimit = 0;
+
+	@Parameter(names = "-minImprovementRate", description = MIN_IMPROVEMENT_RATE_DOCS)
+	private double minImprovementRate = 0;
+
+	@Parameter(names = "-checkpointFile", description = CHECKPOINT_FILE_DOCS)
+	private String checkpointFile;
+
+	@Parameter(names = "-checkpointInterval", description = CHECKPOINT_INTERVAL_DOCS)
+	private int checkpointInterval = 60;
+
 	@Parameter(names = "-help", description="write the documentation of all commands" ,help = true)
 	private boolean help;
 
@@ -168,6 +219,10 @@ public class SalsaParameters implements Serializable {
 		return probabilityOfSplit;
 	}
 
+	public double getProbabilityOfBlockMove() {
+		return this.probabilityOfBlockMove;
+	}
+
 	/**
 	 * Minimum number of iterations
 	 * 
@@ -201,6 +256,86 @@ public class SalsaParameters implements Serializable {
 		return this.distanceMatrix;
 	}
 	
+	/**
+	 * Number of independent local searches
+	 * 
+	 * @return
+	 */
+	public int getRestarts() {
+		return this.restarts;
+	}
+
+	/**
+	 * Number of threads used for the independent local searches
+	 * 
+	 * @return
+	 */
+	public int getThreads() {
+		return this.threads;
+	}
+
+	/**
+	 * Number of column stripes searched in parallel
+	 * 
+	 * @return
+	 */
+	public int getStripes() {
+		return this.stripes;
+	}
+
+	public DeltaEngine getDeltaEngine() {
+		return this.deltaEngine;
+	}
+
+	public MoveSelection getMoveSelection() {
+		return this.moveSelection;
+	}
+
+	public int getAnnealingIterations() {
+		return this.annealingIterations;
+	}
+
+	/**
+	 * Seed of the local search (a random one if it is not specified)
+	 * 
+	 * @return
+	 */
+	public long getSeed() {
+		return this.seed;
+	}
+	
+	/**
+	 * Maximum duration of the local search in seconds, 0 if there is no limit
+	 * 
+	 * @return
+	 */
+	public int getTimeLimit() {
+		return this.timeLimit;
+	}
+
+	public double getMinImprovementRate() {
+		return this.minImprovementRate;
+	}
+
+	/**
+	 * File of the checkpoints of the local search, null if the checkpoints
+	 * are disabled
+	 * 
+	 * @return
+	 */
+	public String getCheckpointFile() {
+		return this.checkpointFile;
+	}
+
+	/**
+	 * Seconds between two checkpoints of the local search
+	 * 
+	 * @return
+	 */
+	public int getCheckpointInterval() {
+		return this.checkpointInterval;
+	}
+	
 	public boolean getHelp(){
 		return this.help;
 	}
@@ -249,6 +384,10 @@ public class SalsaParameters implements Serializable {
 		this.probabilityOfSplit = probabilityOfSplit;
 	}
 
+	public void setProbabilityOfBlockMove(double probabilityOfBlockMove) {
+		this.probabilityOfBlockMove = probabilityOfBlockMove;
+	}
+
 	public void setMinIterations(int minIterations) {
 		this.minIterations = minIterations;
 	}
@@ -278,4 +417,49 @@ public class SalsaParameters implements Serializable {
 	public void setDistanceMatrix(String distanceMatrix) {
 		this.distanceMatrix = distanceMatrix;
 	}
+	
+	public void setRestarts(int restarts) {
+		this.restarts = restarts;
+	}
+	
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+	
+	public void setStripes(int stripes) {
+		this.stripes = stripes;
+	}
+	
+	public void setDeltaEngine(DeltaEngine deltaEngine) {
+		this.deltaEngine = deltaEngine;
+	}
+	
+	public void setMoveSelection(MoveSelection moveSelection) {
+		this.moveSelection = moveSelection;
+	}
+	
+	public void setAnnealingIterations(int annealingIterations) {
+		this.annealingIterations = annealingIterations;
+	}
+	
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+	
+	public void setTimeLimit(int timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+	
+	public void setMinImprovementRate(double minImprovementRate) {
+		this.minImprovementRate = minImprovementRate;
+	}
+	
+	@XmlTransient
+	public void setCheckpointFile(String checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+	
+	public void setCheckpointInterval(int checkpointInterval) {
+		this.checkpointInterval = checkpointInterval;
+	}
 }
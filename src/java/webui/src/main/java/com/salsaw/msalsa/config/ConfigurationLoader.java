@@ -43,6 +43,10 @@ class ConfigurationLoader {
 	private static final String KEY_PUBLISHER = "author.publisher";
 	private static final String KEY_GOOGLE_ANALYTICS_PROPERTY_ID = "google.analytics.propertyID";
 	private static final String KEY_THREAD_POOL_MAX_NUMBER = "thread.pool.maxnumber";
+	private static final String KEY_CHECKPOINT_INTERVAL = "checkpoint.intervalseconds";
+	private static final String KEY_REQUEST_RESTARTS_MAX_NUMBER = "request.restarts.maxnumber";
+	private static final String KEY_REQUEST_THREADS_MAX_NUMBER = "request.threads.maxnumber";
+	private static final String KEY_REQUEST_STRIPES_MAX_NUMBER = "request.stripes.maxnumber";
 
 	
 	ServerConfiguration ReadConfiguration(){		
@@ -67,7 +71,11 @@ class ConfigurationLoader {
 					properties.getProperty(KEY_CLEAN_DAYS_VALIDITY),
 					properties.getProperty(KEY_PUBLISHER),
 					properties.getProperty(KEY_GOOGLE_ANALYTICS_PROPERTY_ID),
-					properties.getProperty(KEY_THREAD_POOL_MAX_NUMBER)
+					properties.getProperty(KEY_THREAD_POOL_MAX_NUMBER),
+					properties.getProperty(KEY_CHECKPOINT_INTERVAL),
+					properties.getProperty(KEY_REQUEST_RESTARTS_MAX_NUMBER),
+					properties.getProperty(KEY_REQUEST_THREADS_MAX_NUMBER),
+					properties.getProperty(KEY_REQUEST_STRIPES_MAX_NUMBER)
 					);
 		} catch (IOException e) {
 			logger.error(e);
@@ -36,6 +36,10 @@ public class ServerConfiguration {
 	private final String sitePublisher;
     private final String googleAnalyticsPropertyID;
     private final Integer threadPoolMaxNumber;
+    private final int checkpointInterval;
+    private final int requestRestartsMaxNumber;
+    private final int requestThreadsMaxNumber;
+    private final int requestStripesMaxNumber;
 	
 	// CONSTRUCTOR
 	ServerConfiguration(
@@ -51,7 +55,11 @@ public class ServerConfiguration {
 			String cleanDaysValidityJob,
 			String sitePublisher,
             String googlePropertyID,
-            String threadPoolMaxNumber){
+            String threadPoolMaxNumber,
+            String checkpointInterval,
+            String requestRestartsMaxNumber,
+            String requestThreadsMaxNumber,
+            String requestStripesMaxNumber){
 		
 		this.clustalW = new File(clustalWPath);
 		this.clustalO = new File(clustalOPath);		
@@ -66,6 +74,10 @@ public class ServerConfiguration {
 		this.sitePublisher = sitePublisher;
         this.googleAnalyticsPropertyID = googlePropertyID;
         this.threadPoolMaxNumber = Integer.parseInt(threadPoolMaxNumber);
+        this.checkpointInterval = Integer.parseInt(checkpointInterval);
+        this.requestRestartsMaxNumber = Integer.parseInt(requestRestartsMaxNumber);
+        this.requestThreadsMaxNumber = Integer.parseInt(requestThreadsMaxNumber);
+        this.requestStripesMaxNumber = Integer.parseInt(requestStripesMaxNumber);
 	}
 	
 	// GET
@@ -105,6 +117,43 @@ public class ServerConfiguration {
 		return this.threadPoolMaxNumber;
 	}
 	
+	/**
+	 * Seconds between two checkpoints of the local search of a request
+	 * 
+	 * @return
+	 */
+	public int getCheckpointInterval() {
+		return this.checkpointInterval;
+	}
+	
+	/**
+	 * Maximum number of independent local searches of a single request
+	 * 
+	 * @return
+	 */
+	public int getRequestRestartsMaxNumber() {
+		return this.requestRestartsMaxNumber;
+	}
+	
+	/**
+	 * Maximum number of threads used by a single request, in addition to the
+	 * thread of the pool that executes it
+	 * 
+	 * @return
+	 */
+	public int getRequestThreadsMaxNumber() {
+		return this.requestThreadsMaxNumber;
+	}
+	
+	/**
+	 * Maximum number of column stripes of a single request
+	 * 
+	 * @return
+	 */
+	public int getRequestStripesMaxNumber() {
+		return this.requestStripesMaxNumber;
+	}
+	
 	public String getMailSmtpAuth() {
 		return mailSmtpAuth;
 	}
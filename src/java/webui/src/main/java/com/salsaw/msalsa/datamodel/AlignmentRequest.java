@@ -15,6 +15,7 @@
  */
 package com.salsaw.msalsa.datamodel;
 
+import java.io.Serializable;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.UUID;
@@ -25,7 +26,9 @@ import com.salsaw.msalsa.config.ConfigurationManager;
  * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
  *
  */
-public class AlignmentRequest {
+public class AlignmentRequest implements Serializable {
+
+	private static final long serialVersionUID = 1L;
 
 	// FIELDS
 	private final SalsaWebParameters salsaWebParameters;
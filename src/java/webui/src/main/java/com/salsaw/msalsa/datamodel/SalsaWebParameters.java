@@ -39,6 +39,11 @@ public class SalsaWebParameters extends SalsaParameters {
 	 */
 	private ClustalType clustalType = ClustalType.CLUSTAL_O;
 	
+	public SalsaWebParameters() {
+		// The requests already share the threads of the server pool
+		setThreads(1);
+	}
+	
 	public String getRecipientEmail() {
 		return this.recipientEmail;
 	}
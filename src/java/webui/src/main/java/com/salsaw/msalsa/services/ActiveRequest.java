@@ -0,0 +1,70 @@
+/**
+ * Copyright 2016 Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.salsaw.msalsa.services;
+
+import java.io.Serializable;
+
+import com.salsaw.msalsa.datamodel.AlignmentRequest;
+
+/**
+ * A request whose execution is started and not yet ended: it is saved inside
+ * the request folder, so that the execution could be resumed after a restart
+ * of the server.
+ * 
+ * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
+ *
+ */
+final class ActiveRequest implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	static final String FILE_NAME = "active-request.ser";
+	/**
+	 * Maximum number of executions of a request: a request that stops the
+	 * server at every execution (for example for the lack of memory) is not
+	 * resumed forever
+	 */
+	static final int MAX_ATTEMPTS = 3;
+
+	// FIELDS
+	private final String webApplicationUri;
+	private final AlignmentRequest alignmentRequest;
+	private final int attempts;
+
+	// CONSTRUCTOR
+	ActiveRequest(String webApplicationUri, AlignmentRequest alignmentRequest, int attempts) {
+		this.webApplicationUri = webApplicationUri;
+		this.alignmentRequest = alignmentRequest;
+		this.attempts = attempts;
+	}
+
+	// GET / SET
+	String getWebApplicationUri() {
+		return this.webApplicationUri;
+	}
+
+	AlignmentRequest getAlignmentRequest() {
+		return this.alignmentRequest;
+	}
+
+	/**
+	 * Number of executions started, the current one included
+	 * 
+	 * @return
+	 */
+	int getAttempts() {
+		return this.attempts;
+	}
+}
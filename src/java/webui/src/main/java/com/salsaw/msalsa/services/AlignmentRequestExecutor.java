@@ -42,6 +42,10 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.salsaw.msalsa.algorithm.LocalSearchListener;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
+import com.salsaw.msalsa.algorithm.LocalSearchProgress;
+import com.salsaw.msalsa.algorithm.enums.DeltaEngine;
 import com.salsaw.msalsa.cli.SalsaAlgorithmExecutor;
 import com.salsaw.msalsa.clustal.ClustalFileMapper;
 import com.salsaw.msalsa.clustal.ClustalWManager;
@@ -60,9 +64,10 @@ import com.salsaw.msalsa.utils.UniProtSequenceManager;
  * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
  *
  */
-public class AlignmentRequestExecutor implements Runnable {
+public class AlignmentRequestExecutor implements Runnable, LocalSearchListener {
 
 	static final String RESULT_ZIP_FILE_NAME = SalsaAlgorithmExecutor.M_SALSA_HEADER + "-results.zip";
+	static final String CHECKPOINT_FILE_NAME = SalsaAlgorithmExecutor.M_SALSA_HEADER + "-checkpoint.snapshot";
 
 	static final Logger logger = LogManager.getLogger(AlignmentRequestExecutor.class);
 	static final ExecutorService executor = Executors
@@ -70,8 +75,20 @@ public class AlignmentRequestExecutor implements Runnable {
 
 	private final AlignmentRequest alignmentRequest;
 	private final String webApplicationUri;
+	/**
+	 * Number of executions started, this one included
+	 */
+	private final int attempts;
+	/**
+	 * Last progress reported by the local search, null before it starts
+	 */
+	private volatile LocalSearchProgress progress;
 
 	public AlignmentRequestExecutor(String webApplicationUri, AlignmentRequest alignmentRequest) {
+		this(webApplicationUri, alignmentRequest, 1);
+	}
+
+	AlignmentRequestExecutor(String webApplicationUri, AlignmentRequest alignmentRequest, int attempts) {
 		if (alignmentRequest == null) {
 			throw new IllegalArgumentException("alignmentRequest");
 		}
@@ -81,16 +98,35 @@ public class AlignmentRequestExecutor implements Runnable {
 
 		this.alignmentRequest = alignmentRequest;
 		this.webApplicationUri = webApplicationUri;
+		this.attempts = attempts;
 	}
 
 	public void startAsyncAlignment() {
 		executor.submit(this);
 	}
 
+	public LocalSearchProgress getProgress() {
+		return this.progress;
+	}
+
+	@Override
+	public void progress(LocalSearchProgress progress) {
+		this.progress = progress;
+	}
+
 	@Override
 	public void run() {
+		// TRUE if the server is stopping: the request will be resumed at the next start
+		boolean interrupted = false;
+		Path activeRequestFile = Paths.get(this.alignmentRequest.getAlignmentRequestPath().toString(),
+				ActiveRequest.FILE_NAME);
 		try {
+			// Save the request before changing its parameters
+			new ObjectSerializer<ActiveRequest>(activeRequestFile.toString())
+					.serialize(new ActiveRequest(this.webApplicationUri, this.alignmentRequest, this.attempts));
+			
 			SalsaWebParameters salsaWebParameters = this.alignmentRequest.getSalsaWebParameters();
+			validateLimits(salsaWebParameters);
 
 			if (salsaWebParameters.getInputFile() == null && salsaWebParameters.getUniProtIds() != null
 					&& salsaWebParameters.getUniProtIds().length != 0) {
@@ -129,8 +165,18 @@ public class AlignmentRequestExecutor implements Runnable {
 			salsaParametersExporter.exportSalsaParameters(salsaWebParameters,
 					salsaWebParameters.getSalsaParametersFile());
 
-			// Start alignment
-			SalsaAlgorithmExecutor.callClustal(salsaWebParameters);			
+			// Checkpoints are supported only by the single local search
+			// without annealing
+			if (salsaWebParameters.getRestarts() == 1 && salsaWebParameters.getStripes() == 1
+					&& salsaWebParameters.getAnnealingIterations() == 0) {
+				salsaWebParameters.setCheckpointFile(Paths.get(this.alignmentRequest.getAlignmentRequestPath().toString(),
+						CHECKPOINT_FILE_NAME).toString());
+				salsaWebParameters.setCheckpointInterval(
+						ConfigurationManager.getInstance().getServerConfiguration().getCheckpointInterval());
+			}
+			
+			// Start alignment, or resume it from the checkpoint
+			SalsaAlgorithmExecutor.callClustal(salsaWebParameters, this);			
 			
 			// Convert output also to CLUSTAL format for visualization
 			ClustalFileMapper clustalFileMapper = new ClustalFileMapper(salsaWebParameters.getOutputFile());
@@ -141,6 +187,10 @@ public class AlignmentRequestExecutor implements Runnable {
 			if (recipientEmail != null && recipientEmail.isEmpty() == false) {
 				this.sendResultMail(salsaWebParameters, recipientEmail, this.alignmentRequest.getId().toString());
 			}
+		} catch (InterruptedException exception) {
+			interrupted = true;
+			logger.warn("Request {} interrupted, it will be resumed at the next start", this.alignmentRequest.getId());
+			Thread.currentThread().interrupt();
 		} catch (Exception exception) {
 			// Log exception once 
 			logger.error(exception);
@@ -153,10 +203,45 @@ public class AlignmentRequestExecutor implements Runnable {
 				logger.error(e);
 			}
 		} finally {
+			if (interrupted == false) {
+				try {
+					Files.deleteIfExists(activeRequestFile);
+				} catch (IOException e) {
+					logger.error(e);
+				}
+			}
 			AlignmentRequestManager.getInstance().endManageRequest(this.alignmentRequest.getId());
 		}
 	}
 
+	/**
+	 * Refuse the requests that would use more resources than the ones allowed
+	 * by the server configuration for a single request
+	 * 
+	 * @param salsaWebParameters
+	 * @throws SALSAException
+	 */
+	private static void validateLimits(SalsaWebParameters salsaWebParameters) throws SALSAException {
+		ServerConfiguration serverConfiguration = ConfigurationManager.getInstance().getServerConfiguration();
+
+		if (salsaWebParameters.getRestarts() > serverConfiguration.getRequestRestartsMaxNumber()) {
+			throw new SALSAException("Error: the number of restarts cannot be greater than "
+					+ serverConfiguration.getRequestRestartsMaxNumber());
+		}
+		if (salsaWebParameters.getThreads() > serverConfiguration.getRequestThreadsMaxNumber()) {
+			throw new SALSAException("Error: the number of threads cannot be greater than "
+					+ serverConfiguration.getRequestThreadsMaxNumber());
+		}
+		if (salsaWebParameters.getStripes() > serverConfiguration.getRequestStripesMaxNumber()) {
+			throw new SALSAException("Error: the number of stripes cannot be greater than "
+					+ serverConfiguration.getRequestStripesMaxNumber());
+		}
+		// The other delta engines are slower, they are used only for comparisons
+		if (salsaWebParameters.getDeltaEngine() != DeltaEngine.COUNTERS) {
+			throw new SALSAException("Error: the delta engine cannot be changed");
+		}
+	}
+
 	private void sendResultMail(SalsaWebParameters salsaWebParameters, String recipientEmail, String jobName)
 			throws AddressException, MessagingException, IOException {
 
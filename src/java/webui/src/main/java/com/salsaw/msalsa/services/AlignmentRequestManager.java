@@ -15,20 +15,32 @@
  */
 package com.salsaw.msalsa.services;
 
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.salsaw.msalsa.algorithm.LocalSearchProgress;
+import com.salsaw.msalsa.algorithm.exceptions.SALSAException;
 import com.salsaw.msalsa.config.ConfigurationManager;
 import com.salsaw.msalsa.datamodel.AlignmentRequest;
+import com.salsaw.msalsa.datamodel.AlignmentResult;
 
 /**
  * @author Alessandro Daniele, Fabio Cesarato, Andrea Giraldin
  *
  */
 public final class AlignmentRequestManager {
+	static final Logger logger = LogManager.getLogger(AlignmentRequestManager.class);
 	private static final AlignmentRequestManager instance= new AlignmentRequestManager();
 	
 	private final Map<UUID, AlignmentRequestExecutor> activeRequests = new ConcurrentHashMap<UUID, AlignmentRequestExecutor>();	
@@ -39,7 +51,11 @@ public final class AlignmentRequestManager {
 		return instance;
 	}
 	
-	public final void startManageRequest(String webApplicationUri, AlignmentRequest alignmentRequest){		
+	public final void startManageRequest(String webApplicationUri, AlignmentRequest alignmentRequest){
+		startManageRequest(webApplicationUri, alignmentRequest, 1);
+	}
+	
+	private void startManageRequest(String webApplicationUri, AlignmentRequest alignmentRequest, int attempts){		
 		if (alignmentRequest == null){
 			throw new IllegalArgumentException("salsaParameters");
 		}
@@ -49,12 +65,70 @@ public final class AlignmentRequestManager {
 		}		
 		
 		// Start the request process
-		AlignmentRequestExecutor aligmentRequestExecutor = new AlignmentRequestExecutor(webApplicationUri, alignmentRequest);		
+		AlignmentRequestExecutor aligmentRequestExecutor = new AlignmentRequestExecutor(webApplicationUri, alignmentRequest, attempts);		
 		this.activeRequests.put(alignmentRequest.getId(), aligmentRequestExecutor);
 
 		aligmentRequestExecutor.startAsyncAlignment();
 	}
 	
+	/**
+	 * Start again the requests that were active when the server stopped. Their
+	 * local searches continue from the last checkpoint. The requests older than
+	 * the validity of the results are not resumed, and a request is abandoned
+	 * after {@link ActiveRequest#MAX_ATTEMPTS} executions.
+	 */
+	public final void resumeInterruptedRequests(){
+		Path workDirectory = Paths.get(ConfigurationManager.getInstance().getServerConfiguration().getTemporaryFilePath());
+		if (Files.isDirectory(workDirectory) == false){
+			return;
+		}
+		
+		// The folders older than the validity are going to be deleted
+		Instant validityDayLimit = Instant.now().minus(
+				ConfigurationManager.getInstance().getServerConfiguration().getCleanDaysValidityJob(), ChronoUnit.DAYS);
+		
+		try (DirectoryStream<Path> requestFolders = Files.newDirectoryStream(workDirectory)) {
+			for (Path requestFolder : requestFolders) {
+				Path activeRequestFile = requestFolder.resolve(ActiveRequest.FILE_NAME);
+				if (Files.exists(activeRequestFile) == false){
+					continue;
+				}
+				
+				try {
+					if (Files.getLastModifiedTime(requestFolder).toInstant().isBefore(validityDayLimit)){
+						logger.info("The request in {} is expired, it is not resumed", requestFolder);
+						continue;
+					}
+					
+					ObjectSerializer<ActiveRequest> activeRequestSerializer = new ObjectSerializer<>(activeRequestFile.toString());
+					ActiveRequest activeRequest = activeRequestSerializer.deserialize();
+					if (activeRequest.getAttempts() >= ActiveRequest.MAX_ATTEMPTS){
+						logger.error("The request {} has been interrupted {} times, it is not resumed",
+								activeRequest.getAlignmentRequest().getId(), activeRequest.getAttempts());
+						new ObjectSerializer<Exception>(requestFolder.resolve(AlignmentResult.ERROR_FILE_NAME).toString())
+								.serialize(new SALSAException("Error: the execution of the request has been interrupted "
+										+ activeRequest.getAttempts() + " times"));
+						Files.delete(activeRequestFile);
+						continue;
+					}
+					
+					// Count the attempt before starting it: if the server
+					// stops again, the next start will see it
+					int attempts = activeRequest.getAttempts() + 1;
+					activeRequestSerializer.serialize(new ActiveRequest(activeRequest.getWebApplicationUri(),
+							activeRequest.getAlignmentRequest(), attempts));
+					
+					logger.info("Resume the request {} (attempt {})", activeRequest.getAlignmentRequest().getId(), attempts);
+					startManageRequest(activeRequest.getWebApplicationUri(), activeRequest.getAlignmentRequest(), attempts);
+				} catch (IOException | ClassNotFoundException e) {
+					logger.error("Unable to resume the request in " + requestFolder, e);
+				}
+			}
+		} catch (IOException e) {
+			logger.error(e);
+		}
+	}
+	
 	public final void endManageRequest(UUID alignmentRequestId){		
 		this.activeRequests.remove(alignmentRequestId);
 	}
@@ -81,6 +155,21 @@ public final class AlignmentRequestManager {
 		return true;
 	}
 	
+	/**
+	 * The last progress of the local search of an active request
+	 * 
+	 * @param idRequest
+	 * @return null if the request is not active or the local search is not started
+	 */
+	public final LocalSearchProgress getRequestProgress(UUID idRequest) {
+		AlignmentRequestExecutor alignmentRequestExecutor = activeRequests.get(idRequest);
+		if (alignmentRequestExecutor == null){
+			return null;
+		}
+		
+		return alignmentRequestExecutor.getProgress();
+	}
+	
 	public final Path getServerAligmentFolder(UUID idRequest){
 		// Load server configuration
 		String tmpFolder = ConfigurationManager.getInstance().getServerConfiguration().getTemporaryFilePath();
@@ -39,6 +39,7 @@ import org.apache.commons.beanutils.converters.StringConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.salsaw.msalsa.algorithm.CompressedFiles;
 import com.salsaw.msalsa.cli.SalsaAlgorithmExecutor;
 import com.salsaw.msalsa.datamodel.AlignmentRequest;
 import com.salsaw.msalsa.datamodel.SalsaWebParameters;
@@ -130,10 +131,11 @@ public class AlignmentRequestServlet extends HttpServlet {
 			}
 
 			if (fileName.isEmpty() == false) {
-				// Load data from file
-				try (InputStream inputAlignmentFileContet = filePart.getInputStream()) {			
+				// Load data from file, decompressed if it is compressed with gzip
+				try (InputStream inputAlignmentFileContet = CompressedFiles.openInput(filePart.getInputStream())) {			
 					// Open the file for writing.
-					Path inputFilePath = Paths.get(requestProcessFolder.toString(), fileName);
+					Path inputFilePath = Paths.get(requestProcessFolder.toString(),
+							CompressedFiles.removeCompressedExtension(fileName));
 					Files.copy(inputAlignmentFileContet, inputFilePath);
 					salsaWebParameters.setInputFile(inputFilePath.toString());
 				}
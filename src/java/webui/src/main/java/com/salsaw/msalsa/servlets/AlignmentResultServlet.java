@@ -20,16 +20,17 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
-import javax.servlet.ServletOutputStream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -38,7 +39,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import com.salsaw.msalsa.algorithm.FastaFileReader;
+import com.salsaw.msalsa.algorithm.FastaAlignmentReader;
 import com.salsaw.msalsa.datamodel.AlignmentResult;
 import com.salsaw.msalsa.datamodel.AlignmentResultFileType;
 import com.salsaw.msalsa.services.ClustalFileContentSplitter;
@@ -96,10 +97,9 @@ public class AlignmentResultServlet extends HttpServlet {
 				}
 									
 				// Redirect the request to index and add info to request
-				FastaFileReader fastaFileReader = new FastaFileReader(alignmentResult.getAligmentFastaFilePath());
-				//request.setAttribute(ALIGNMENT_FILE_FASTA_SEQUENCES_HEADERS_ATTRIBUTE, fastaFileReader.getSequencesHeaders());
-				//request.setAttribute(ALIGNMENT_FILE_FASTA_SEQUENCES_CONTENT_ATTRIBUTE, fastaFileReader.getSequences());
-				request.setAttribute(ALIGNMENT_FILE_SEQUENCES_NUMBER, fastaFileReader.getSequences().size());
+				FastaAlignmentReader fastaAlignmentReader = new FastaAlignmentReader(alignmentResult.getAligmentFastaFilePath());
+				//request.setAttribute(ALIGNMENT_FILE_FASTA_SEQUENCES_HEADERS_ATTRIBUTE, fastaAlignmentReader.getSequencesHeaders());
+				request.setAttribute(ALIGNMENT_FILE_SEQUENCES_NUMBER, fastaAlignmentReader.getNumberOfSequences());
 				request.setAttribute(AlignmentStatusServlet.ID_PARAMETER, idRequest);
 				
 				RequestDispatcher requestDispatcher =
@@ -170,6 +170,8 @@ public class AlignmentResultServlet extends HttpServlet {
 	 * you want the browser to receive a different name than the 
 	 * name the file has been saved in your local database, since 
 	 * your local names need to be unique.
+	 * The file is compressed with gzip if the browser accepts it: the browser
+	 * decompresses it before saving.
 	 * @param req
 	 *            The request
 	 * @param resp
@@ -190,14 +192,21 @@ public class AlignmentResultServlet extends HttpServlet {
 		File f = new File(filePath);
 		int length = 0;
 
-		try(ServletOutputStream op = resp.getOutputStream()){
-			
-			String mimetype = getServletConfig().getServletContext().getMimeType(filePath);
+		String acceptEncoding = req.getHeader("Accept-Encoding");
+		boolean compress = acceptEncoding != null && acceptEncoding.contains("gzip");
+		
+		String mimetype = getServletConfig().getServletContext().getMimeType(filePath);
 
-			// Set the response and go!
-			resp.setContentType((mimetype != null) ? mimetype : "application/octet-stream");
+		// Set the response and go!
+		resp.setContentType((mimetype != null) ? mimetype : "application/octet-stream");
+		if (compress) {
+			resp.setHeader("Content-Encoding", "gzip");
+		} else {
 			resp.setContentLength((int) f.length());
-			resp.setHeader("Content-Disposition", "attachment; filename=\"" + original_filename + "\"");
+		}
+		resp.setHeader("Content-Disposition", "attachment; filename=\"" + original_filename + "\"");
+
+		try(OutputStream op = compress ? new GZIPOutputStream(resp.getOutputStream(), BUFSIZE) : resp.getOutputStream()){
 
 			// Stream to the requester.
 			byte[] bbuf = new byte[BUFSIZE];
@@ -16,6 +16,7 @@
 package com.salsaw.msalsa.servlets;
 
 import java.io.IOException;
+import java.util.Locale;
 import java.util.UUID;
 
 import javax.servlet.ServletException;
@@ -27,6 +28,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.salsaw.msalsa.algorithm.LocalSearchProgress;
 import com.salsaw.msalsa.services.AlignmentRequestManager;
 import com.salsaw.msalsa.services.ServletExceptionManager;
 
@@ -60,6 +62,7 @@ public class ProcessCheckerServlet extends HttpServlet {
 			else {
 				if (AlignmentRequestManager.getInstance().IsRequestCompleted(idRequest) == false) {
 					response.setStatus(HttpServletResponse.SC_ACCEPTED);
+					writeProgress(AlignmentRequestManager.getInstance().getRequestProgress(idRequest), response);
 				} else {
 					response.setStatus(HttpServletResponse.SC_OK);
 				}
@@ -68,4 +71,21 @@ public class ProcessCheckerServlet extends HttpServlet {
 			ServletExceptionManager.manageException(e, request, response);
 		}
 	}
+	
+	/**
+	 * Write the progress of the local search as JSON, an empty object if the
+	 * local search is not started
+	 */
+	private static void writeProgress(LocalSearchProgress progress, HttpServletResponse response) throws IOException {
+		response.setContentType("application/json");
+		response.setCharacterEncoding("UTF-8");
+		if (progress == null) {
+			response.getWriter().write("{}");
+			return;
+		}
+		
+		response.getWriter().write(String.format(Locale.ROOT,
+				"{\"iterations\":%d,\"acceptedMoves\":%d,\"score\":%.2f}",
+				progress.getIterations(), progress.getAcceptedMoves(), progress.getScore()));
+	}
 }
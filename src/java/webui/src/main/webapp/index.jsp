@@ -1,4 +1,5 @@
 <%@page import="com.salsaw.msalsa.cli.SalsaParameters"%>
+<%@page import="com.salsaw.msalsa.config.ConfigurationManager"%>
 <%@page import="com.salsaw.msalsa.cli.SalsaAlgorithmExecutor"%>
 <%@page import="com.salsaw.msalsa.clustal.ClustalType"%>
 <%@page import="com.salsaw.msalsa.algorithm.enums.*"%>
@@ -25,7 +26,8 @@
 	<c:set var="terminalGAPsStrategies"
 		value="<%=TerminalGAPsStrategy.values()%>" />		
 	<c:set var="embeddedScoringMatrices"
-		value="<%=EmbeddedScoringMatrix.values()%>" />		
+		value="<%=EmbeddedScoringMatrix.values()%>" />
+	<c:set var="moveSelections" value="<%=MoveSelection.values()%>" />		
 
 	<div class="container">
 		<jsp:include page="navbar.jsp" />
@@ -219,7 +221,7 @@ P69905" data-toggle="tooltip" class="info-button" data-placement="left"><span cl
 								<label class="control-label col-sm-2" for="minIterations" 
 								title="<%=SalsaParameters.MIN_ITERATIONS_DOCS%>">Min Iterations:</label>
 								<div class="col-sm-10">
-									<input type="number" class="form-control" id="minIterations"
+									<input type="number" min="1" class="form-control" id="minIterations"
 										name="minIterations" title="<%=SalsaParameters.MIN_ITERATIONS_DOCS%>"
 										value="${fn:escapeXml(salsaParameters.minIterations)}">
 								</div>
@@ -236,6 +238,109 @@ P69905" data-toggle="tooltip" class="info-button" data-placement="left"><span cl
 								</div>
 							</div>
 
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="probabilityOfBlockMove" 
+								title="<%=SalsaParameters.PROBABILITY_OF_BLOCK_MOVE_DOCS%>">Probability Of Block Move:</label>
+								<div class="col-sm-10">
+									<input type="number" step="0.01" min="0" max="1" class="form-control"
+										id="probabilityOfBlockMove" name="probabilityOfBlockMove"
+										value="${fn:escapeXml(salsaParameters.probabilityOfBlockMove)}"
+										title="<%=SalsaParameters.PROBABILITY_OF_BLOCK_MOVE_DOCS%>">
+								</div>
+							</div>
+
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="restarts" 
+								title="<%=SalsaParameters.RESTARTS_DOCS%>">Restarts:</label>
+								<div class="col-sm-10">
+									<input type="number" min="1" 
+										max="<%=ConfigurationManager.getInstance().getServerConfiguration().getRequestRestartsMaxNumber()%>"
+										class="form-control" id="restarts"
+										name="restarts" title="<%=SalsaParameters.RESTARTS_DOCS%>"
+										value="${fn:escapeXml(salsaParameters.restarts)}">
+								</div>
+							</div>
+
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="threads" 
+								title="<%=SalsaParameters.THREADS_DOCS%>">Threads:</label>
+								<div class="col-sm-10">
+									<input type="number" min="1" 
+										max="<%=ConfigurationManager.getInstance().getServerConfiguration().getRequestThreadsMaxNumber()%>"
+										class="form-control" id="threads"
+										name="threads" title="<%=SalsaParameters.THREADS_DOCS%>"
+										value="${fn:escapeXml(salsaParameters.threads)}">
+								</div>
+							</div>
+
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="stripes" 
+								title="<%=SalsaParameters.STRIPES_DOCS%>">Stripes:</label>
+								<div class="col-sm-10">
+									<input type="number" min="1" 
+										max="<%=ConfigurationManager.getInstance().getServerConfiguration().getRequestStripesMaxNumber()%>"
+										class="form-control" id="stripes"
+										name="stripes" title="<%=SalsaParameters.STRIPES_DOCS%>"
+										value="${fn:escapeXml(salsaParameters.stripes)}">
+								</div>
+							</div>
+
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="moveSelection" 
+								title="<%=SalsaParameters.MOVE_SELECTION_DOCS%>">Move Selection:</label>
+								<div class="col-sm-10">
+									<select id="moveSelection" name="moveSelection"
+										class="form-control">
+										<c:forEach items="${moveSelections}"
+											var="moveSelection">
+											<option value="${moveSelection}"
+												${salsaParameters.moveSelection == moveSelection ? 'selected' : ''}>${moveSelection}</option>
+										</c:forEach>
+									</select>
+								</div>
+							</div>
+
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="seed" 
+								title="<%=SalsaParameters.SEED_DOCS%>">Seed:</label>
+								<div class="col-sm-10">
+									<input type="number" class="form-control" id="seed" required
+										name="seed" title="<%=SalsaParameters.SEED_DOCS%>"
+										value="${fn:escapeXml(salsaParameters.seed)}">
+								</div>
+							</div>
+
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="timeLimit" 
+								title="<%=SalsaParameters.TIME_LIMIT_DOCS%>">Time Limit (s):</label>
+								<div class="col-sm-10">
+									<input type="number" min="0" class="form-control" id="timeLimit"
+										name="timeLimit" title="<%=SalsaParameters.TIME_LIMIT_DOCS%>"
+										value="${fn:escapeXml(salsaParameters.timeLimit)}">
+								</div>
+							</div>
+
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="annealingIterations" 
+								title="<%=SalsaParameters.ANNEALING_ITERATIONS_DOCS%>">Annealing Iterations:</label>
+								<div class="col-sm-10">
+									<input type="number" min="0" class="form-control" id="annealingIterations"
+										name="annealingIterations" title="<%=SalsaParameters.ANNEALING_ITERATIONS_DOCS%>"
+										value="${fn:escapeXml(salsaParameters.annealingIterations)}">
+								</div>
+							</div>
+
+							<div class="form-group">
+								<label class="control-label col-sm-2" for="minImprovementRate" 
+								title="<%=SalsaParameters.MIN_IMPROVEMENT_RATE_DOCS%>">Min Improvement Rate:</label>
+								<div class="col-sm-10">
+									<input type="number" min="0" step="any" class="form-control"
+										id="minImprovementRate" name="minImprovementRate"
+										value="${fn:escapeXml(salsaParameters.minImprovementRate)}"
+										title="<%=SalsaParameters.MIN_IMPROVEMENT_RATE_DOCS%>">
+								</div>
+							</div>
+
 							<div class="form-group">
 								<label class="control-label col-sm-2" for="terminalGAPsStrategy" 
 								title="<%=SalsaParameters.TERMINAL_GAPS_STRATEGY_DOCS%>">Terminal GAPs Strategy:</label>
@@ -29,7 +29,12 @@ function poll(maxDelayIncrement, delayMilliseconds, processId) {
 				window.location.href = redirectUrl;
 			},
 
-			202 : function() {
+			202 : function(progress) {
+				if (progress && progress.iterations !== undefined) {
+					$('#progress').text('Local search: ' + progress.iterations + ' iterations, '
+							+ progress.acceptedMoves + ' accepted moves, WSP-Score ' + progress.score);
+				}
+
 				// http://jsfiddle.net/pajtai/pLka0ow9/
 				var exponentialBackoffDelay = delayMilliseconds;
 				if (maxDelayIncrement > 0) {
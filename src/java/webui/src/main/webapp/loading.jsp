@@ -19,6 +19,7 @@
 				<div class="progress-bar progress-bar-striped active"
 					role="progressbar" style="width: 100%"></div>
 			</div>
+			<p id="progress"></p>
 		</div>
 
 		<div class="row correct-margin">